@@ -0,0 +1,102 @@
+package info.kgeorgiy.ja.amirov.bench;
+
+import info.kgeorgiy.ja.amirov.arrayset.ArraySet;
+
+import java.util.NavigableSet;
+import java.util.Random;
+
+// Usage: ArraySetBenchmark [--size n] [--lookups n] [--iterations n]
+// Compares lookups through plain binary search with the B-tree search index on random keys,
+// half of which are present in the set: integers keyed by value, and strings keyed by their prefix.
+public class ArraySetBenchmark {
+    private static final int WARMUP = 3;
+
+    public static void main(String[] args) throws Exception {
+        int size = 10_000_000;
+        int lookups = 1_000_000;
+        int iterations = 5;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--size" -> size = Integer.parseInt(args[i + 1]);
+                case "--lookups" -> lookups = Integer.parseInt(args[i + 1]);
+                case "--iterations" -> iterations = Integer.parseInt(args[i + 1]);
+                default -> throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+
+        Random random = new Random(4242);
+        for (int n = size; n >= 1_000; n /= 100) {
+            ArraySet.Builder<Integer> builder = new ArraySet.Builder<>();
+            for (int i = 0; i < n; i++) {
+                builder.add(2 * i);
+            }
+            ArraySet<Integer> plain = builder.build();
+            ArraySet<Integer> indexed = plain.indexed(Integer::longValue);
+            Integer[] keys = new Integer[lookups];
+            for (int i = 0; i < lookups; i++) {
+                keys[i] = random.nextInt(2 * n);
+            }
+            Bench.measure("contains, binary search, n=" + n, "lookups", WARMUP, iterations,
+                    () -> contains(plain, keys));
+            Bench.measure("contains, b-tree index, n=" + n, "lookups", WARMUP, iterations,
+                    () -> contains(indexed, keys));
+            Bench.measure("ceiling, binary search, n=" + n, "lookups", WARMUP, iterations,
+                    () -> ceiling(plain, keys));
+            Bench.measure("ceiling, b-tree index, n=" + n, "lookups", WARMUP, iterations,
+                    () -> ceiling(indexed, keys));
+            NavigableSet<Integer> view = indexed.tailSet(n, true);
+            Bench.measure("ceiling on a view, b-tree index, n=" + n, "lookups", WARMUP, iterations,
+                    () -> ceiling(view, keys));
+        }
+        for (int n = Math.min(size, 1_000_000); n >= 1_000; n /= 100) {
+            ArraySet.Builder<String> builder = new ArraySet.Builder<>();
+            for (int i = 0; i < n; i++) {
+                builder.add(word(random));
+            }
+            ArraySet<String> plain = builder.build();
+            ArraySet<String> indexed = plain.indexed(ArraySet::stringPrefix);
+            String[] keys = new String[lookups];
+            for (int i = 0; i < lookups; i++) {
+                keys[i] = i % 2 == 0 ? word(random) : plain.ceiling(word(random));
+                if (keys[i] == null) {
+                    keys[i] = plain.first();
+                }
+            }
+            Bench.measure("strings contains, binary search, n=" + n, "lookups", WARMUP, iterations,
+                    () -> contains(plain, keys));
+            Bench.measure("strings contains, b-tree index, n=" + n, "lookups", WARMUP, iterations,
+                    () -> contains(indexed, keys));
+        }
+    }
+
+    private static String word(Random random) {
+        char[] chars = new char[8 + random.nextInt(8)];
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = (char) ('a' + random.nextInt(26));
+        }
+        return new String(chars);
+    }
+
+    private static <T> long contains(NavigableSet<T> set, T[] keys) {
+        long found = 0;
+        for (T key : keys) {
+            if (set.contains(key)) {
+                found++;
+            }
+        }
+        Bench.consume(found);
+        return keys.length;
+    }
+
+    private static long ceiling(NavigableSet<Integer> set, Integer[] keys) {
+        long sum = 0;
+        for (Integer key : keys) {
+            Integer ceiling = set.ceiling(key);
+            if (ceiling != null) {
+                sum += ceiling;
+            }
+        }
+        Bench.consume(sum);
+        return keys.length;
+    }
+}
@@ -0,0 +1,39 @@
+package info.kgeorgiy.ja.amirov.bench;
+
+import java.util.Arrays;
+
+// Minimal timing harness: runs warm-up iterations, then reports mean and best time per operation
+// and the throughput of the work units returned by the body.
+public final class Bench {
+    private static volatile long sink;
+
+    @FunctionalInterface
+    public interface Body {
+        long run() throws Exception;
+    }
+
+    private Bench() {
+    }
+
+    public static void measure(String name, String unit, int warmup, int iterations, Body body) throws Exception {
+        for (int i = 0; i < warmup; i++) {
+            sink += body.run();
+        }
+        long[] times = new long[iterations];
+        long units = 0;
+        for (int i = 0; i < iterations; i++) {
+            long start = System.nanoTime();
+            units = body.run();
+            times[i] = System.nanoTime() - start;
+            sink += units;
+        }
+        double mean = Arrays.stream(times).average().orElse(0) / 1e6;
+        double best = Arrays.stream(times).min().orElse(0) / 1e6;
+        System.out.format("%-48s %12.3f ms/op %12.3f ms/op (best) %14.1f %s/s%n",
+                name, mean, best, mean == 0 ? 0 : units / (mean / 1e3), unit);
+    }
+
+    public static void consume(long value) {
+        sink += value;
+    }
+}
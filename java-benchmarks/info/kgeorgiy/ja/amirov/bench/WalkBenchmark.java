@@ -0,0 +1,174 @@
+package info.kgeorgiy.ja.amirov.bench;
+
+import info.kgeorgiy.ja.amirov.walk.FileHasher;
+import info.kgeorgiy.ja.amirov.walk.HashAlgorithm;
+import info.kgeorgiy.ja.amirov.walk.Walk;
+import info.kgeorgiy.ja.amirov.walk.WalkException;
+import info.kgeorgiy.ja.amirov.walk.WalkOptions;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+// Usage: WalkBenchmark [--max-size bytes] [--files n] [--iterations n]
+// Generates every fixture into a temporary directory, which is removed afterwards.
+public class WalkBenchmark {
+    private static final long[] SIZES = {0, 1 << 10, 1 << 16, 1 << 20, 1 << 26, 1 << 30};
+    private static final int WARMUP = 2;
+
+    private final Path root;
+    private final long maxSize;
+    private final int files;
+    private final int iterations;
+    private final Random random = new Random(4242);
+
+    private WalkBenchmark(final Path root, final long maxSize, final int files, final int iterations) {
+        this.root = root;
+        this.maxSize = maxSize;
+        this.files = files;
+        this.iterations = iterations;
+    }
+
+    public static void main(String[] args) throws Exception {
+        long maxSize = 1 << 30;
+        int files = 10_000;
+        int iterations = 5;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--max-size" -> maxSize = Long.parseLong(args[i + 1]);
+                case "--files" -> files = Integer.parseInt(args[i + 1]);
+                case "--iterations" -> iterations = Integer.parseInt(args[i + 1]);
+                default -> throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+        Path root = Files.createTempDirectory("walk-bench");
+        try {
+            WalkBenchmark benchmark = new WalkBenchmark(root, maxSize, files, iterations);
+            benchmark.hashing();
+            benchmark.traversal();
+            benchmark.endToEnd();
+        } finally {
+            delete(root);
+        }
+    }
+
+    private void hashing() throws Exception {
+        for (long size : SIZES) {
+            if (size > maxSize) {
+                continue;
+            }
+            Path file = generate(root.resolve("hash-" + size), size);
+            BasicFileAttributes bfa = Files.readAttributes(file, BasicFileAttributes.class);
+            int repeat = (int) Math.max(1, Math.min(1000, (1 << 24) / Math.max(size, 1)));
+            for (HashAlgorithm algorithm : HashAlgorithm.values()) {
+                FileHasher hasher = new FileHasher(algorithm);
+                Bench.measure(String.format("hash %s %d B x%d", algorithm, size, repeat), "KB",
+                        WARMUP, iterations, () -> {
+                            long sum = 0;
+                            for (int i = 0; i < repeat; i++) {
+                                sum += hasher.hash(file, bfa)[0];
+                            }
+                            Bench.consume(sum);
+                            return size * repeat >> 10;
+                        });
+            }
+            Files.delete(file);
+        }
+    }
+
+    private void traversal() throws Exception {
+        Path deep = root.resolve("deep");
+        Path dir = deep;
+        for (int i = 0; i < 256; i++) {
+            dir = dir.resolve("d" + i);
+            generateFiles(dir, 4, 16);
+        }
+        Path wide = root.resolve("wide");
+        for (int i = 0; i < 256; i++) {
+            generateFiles(wide.resolve("d" + i), Math.max(1, files / 256), 16);
+        }
+        for (Path tree : List.of(deep, wide)) {
+            Bench.measure("walkFileTree " + tree.getFileName(), "files", WARMUP, iterations, () -> count(tree));
+        }
+    }
+
+    private void endToEnd() throws Exception {
+        Path data = root.resolve("data");
+        List<Path> paths = new ArrayList<>();
+        for (int i = 0; i < 64; i++) {
+            paths.addAll(generateFiles(data.resolve("d" + i), Math.max(1, files / 64), 4096));
+        }
+        Path fileList = root.resolve("files.txt");
+        Files.write(fileList, paths.stream().map(Path::toString).toList());
+        Path dirList = root.resolve("dirs.txt");
+        Files.writeString(dirList, data.toString());
+        Path output = root.resolve("out.txt");
+
+        for (int threads : new int[]{1, Math.max(4, Runtime.getRuntime().availableProcessors())}) {
+            Bench.measure(String.format("Walk %d files, %d threads", paths.size(), threads), "files",
+                    WARMUP, iterations, () -> {
+                        Walk.walk(new WalkOptions(fileList.toString(), output.toString()).threads(threads), 0);
+                        return paths.size();
+                    });
+            Bench.measure(String.format("RecursiveWalk %d files, %d threads", paths.size(), threads), "files",
+                    WARMUP, iterations, () -> {
+                        Walk.walk(new WalkOptions(dirList.toString(), output.toString()).threads(threads), Integer.MAX_VALUE);
+                        return paths.size();
+                    });
+        }
+    }
+
+    private List<Path> generateFiles(Path dir, int count, int size) throws IOException {
+        Files.createDirectories(dir);
+        List<Path> result = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            result.add(generate(dir.resolve("f" + i), random.nextInt(size + 1)));
+        }
+        return result;
+    }
+
+    private Path generate(Path file, long size) throws IOException {
+        byte[] chunk = new byte[(int) Math.min(size, 1 << 20)];
+        try (OutputStream out = Files.newOutputStream(file)) {
+            for (long left = size; left > 0; left -= chunk.length) {
+                random.nextBytes(chunk);
+                out.write(chunk, 0, (int) Math.min(left, chunk.length));
+            }
+        }
+        return file;
+    }
+
+    private static long count(Path tree) throws IOException {
+        long[] count = new long[1];
+        Files.walkFileTree(tree, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                count[0]++;
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        return count[0];
+    }
+
+    private static void delete(Path root) throws IOException {
+        try (Stream<Path> walk = Files.walk(root)) {
+            walk.sorted(Comparator.reverseOrder()).forEach(path -> {
+                try {
+                    Files.delete(path);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package info.kgeorgiy.ja.amirov.arrayset;
+
+import java.util.*;
+
+// Immutable navigable set over the ascending storage range [from, to), viewed in either direction.
+// Subclasses only provide element access, binary search in storage order and view creation.
+abstract class AbstractIndexedSet<T> extends AbstractSet<T> implements NavigableSet<T> {
+
+    final int from;
+    final int to;
+    final boolean descending;
+
+    AbstractIndexedSet(int from, int to, boolean descending) {
+        this.from = from;
+        this.to = to;
+        this.descending = descending;
+    }
+
+    abstract T elementAt(int index);
+
+    // Arrays.binarySearch contract over storage indices in [from, to).
+    abstract int search(T element);
+
+    abstract int compareAscending(T a, T b);
+
+    abstract AbstractIndexedSet<T> view(int from, int to, boolean descending);
+
+    int ceilingStorageIndex(int found, boolean inclusive) {
+        return found >= 0 ? (inclusive ? found : found + 1) : -found - 1;
+    }
+
+    int floorStorageIndex(int found, boolean inclusive) {
+        return found >= 0 ? (inclusive ? found : found - 1) : -found - 2;
+    }
+
+    // Storage index of the closest element before (`lower`) or after the given one in the iteration order.
+    int indexBound(int found, boolean lower, boolean inclusive) {
+        return lower != descending ? floorStorageIndex(found, inclusive) : ceilingStorageIndex(found, inclusive);
+    }
+
+    int storageIndex(int position) {
+        return descending ? to - 1 - position : from + position;
+    }
+
+    int position(int index) {
+        if (index < from || to <= index) {
+            return -1;
+        }
+        return descending ? to - 1 - index : index - from;
+    }
+
+    private T get(int index) {
+        return from <= index && index < to ? elementAt(index) : null;
+    }
+
+    private T checkedGet(int position) {
+        if (isEmpty()) {
+            throw new NoSuchElementException();
+        }
+        return elementAt(storageIndex(position));
+    }
+
+    private int compare(T a, T b) {
+        return descending ? compareAscending(b, a) : compareAscending(a, b);
+    }
+
+    @Override
+    public T lower(T t) {
+        return get(indexBound(search(t), true, false));
+    }
+
+    @Override
+    public T floor(T t) {
+        return get(indexBound(search(t), true, true));
+    }
+
+    @Override
+    public T ceiling(T t) {
+        return get(indexBound(search(t), false, true));
+    }
+
+    @Override
+    public T higher(T t) {
+        return get(indexBound(search(t), false, false));
+    }
+
+    @Override
+    public T pollFirst() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public T pollLast() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        return new Iterator<>() {
+            private int position;
+
+            @Override
+            public boolean hasNext() {
+                return position < size();
+            }
+
+            @Override
+            public T next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return elementAt(storageIndex(position++));
+            }
+        };
+    }
+
+    @Override
+    public NavigableSet<T> descendingSet() {
+        return view(from, to, !descending);
+    }
+
+    @Override
+    public Iterator<T> descendingIterator() {
+        return descendingSet().iterator();
+    }
+
+    @Override
+    public NavigableSet<T> subSet(T fromElement, boolean fromInclusive, T toElement, boolean toInclusive) {
+        if (compare(fromElement, toElement) > 0) {
+            throw new IllegalArgumentException();
+        }
+        T low = descending ? toElement : fromElement;
+        T high = descending ? fromElement : toElement;
+        int left = ceilingStorageIndex(search(low), descending ? toInclusive : fromInclusive);
+        int right = floorStorageIndex(search(high), descending ? fromInclusive : toInclusive);
+        return view(left, Math.max(left, right + 1), descending);
+    }
+
+    @Override
+    public NavigableSet<T> headSet(T toElement, boolean inclusive) {
+        return descending
+                ? view(ceilingStorageIndex(search(toElement), inclusive), to, true)
+                : view(from, floorStorageIndex(search(toElement), inclusive) + 1, false);
+    }
+
+    @Override
+    public NavigableSet<T> tailSet(T fromElement, boolean inclusive) {
+        return descending
+                ? view(from, floorStorageIndex(search(fromElement), inclusive) + 1, true)
+                : view(ceilingStorageIndex(search(fromElement), inclusive), to, false);
+    }
+
+    @Override
+    public SortedSet<T> subSet(T fromElement, T toElement) {
+        return subSet(fromElement, true, toElement, false);
+    }
+
+    @Override
+    public SortedSet<T> headSet(T toElement) {
+        return headSet(toElement, false);
+    }
+
+    @Override
+    public SortedSet<T> tailSet(T fromElement) {
+        return tailSet(fromElement, true);
+    }
+
+    @Override
+    public Comparator<? super T> comparator() {
+        return descending ? Collections.reverseOrder() : null;
+    }
+
+    @Override
+    public T first() {
+        return checkedGet(0);
+    }
+
+    @Override
+    public T last() {
+        return checkedGet(size() - 1);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return from == to;
+    }
+
+    @Override
+    public int size() {
+        return to - from;
+    }
+}
@@ -1,11 +1,14 @@
 package info.kgeorgiy.ja.amirov.arrayset;
 
 import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.ToLongFunction;
 
 public class ArraySet<T extends Comparable<T>> extends AbstractSet<T> implements NavigableSet<T> {
 
     private final ReverseList<T> rl;
     private final Comparator<? super T> cmp;
+    private final BTreeIndex<T> index;
 
     public ArraySet() {
         this(new ReverseList<>(), null);
@@ -20,18 +23,106 @@ public class ArraySet<T extends Comparable<T>> extends AbstractSet<T> implements
     }
 
     public ArraySet(Collection<? extends T> collection, Comparator<? super T> cmp) {
-        TreeSet<T> ts = new TreeSet<>(cmp);
-        ts.addAll(Objects.requireNonNull(collection));
-        this.rl = new ReverseList<>(ts);
+        Object[] elements = Objects.requireNonNull(collection).toArray();
+        int size = collection instanceof SortedSet<?> sorted && Objects.equals(sorted.comparator(), cmp)
+                ? elements.length : distinct(elements, elements.length, cmp);
+        this.rl = new ReverseList<>(elements, size);
         this.cmp = cmp;
+        this.index = null;
     }
 
     private ArraySet(ReverseList<T> rlOld, Comparator<? super T> cmp) {
-        this.rl = rlOld;
+        this(rlOld, cmp, null);
+    }
+
+    private ArraySet(ReverseList<T> rl, Comparator<? super T> cmp, BTreeIndex<T> index) {
+        this.rl = rl;
         this.cmp = cmp;
+        this.index = index;
+    }
+
+    // Takes ownership of the array, its first `size` elements must be sorted by `cmp` and distinct.
+    static <T extends Comparable<T>> ArraySet<T> ofSorted(Object[] sorted, int size, Comparator<? super T> cmp) {
+        return new ArraySet<>(new ReverseList<T>(sorted, size), cmp);
+    }
+
+    // The same set with a search index for read-heavy use, taking about nine bytes per element.
+    // `key` must not decrease along the set, elements with equal keys are told apart by the comparator:
+    // Integer::longValue for natural order of integers, ArraySet::stringPrefix for natural order of strings.
+    // Views of the indexed set share the index.
+    public ArraySet<T> indexed(ToLongFunction<? super T> key) {
+        return new ArraySet<>(rl, cmp, new BTreeIndex<>(rl, cmp, key));
+    }
+
+    // Key for indexing strings in natural order: the first four chars, shorter strings padded with zeros.
+    public static long stringPrefix(String s) {
+        long prefix = 0;
+        for (int i = 0; i < 4; i++) {
+            prefix = prefix << Character.SIZE | (i < s.length() ? s.charAt(i) : 0);
+        }
+        return prefix ^ Long.MIN_VALUE;
+    }
+
+    private int search(T element) {
+        return index != null ? index.search(element, rl) : Collections.binarySearch(this.rl, element, cmp);
+    }
+
+    // Sorts stably and keeps the first of equal elements, like adding them to a TreeSet one by one.
+    // Already sorted input takes a single linear pass of the sort and the deduplication.
+    @SuppressWarnings("unchecked")
+    private static <T> int distinct(Object[] elements, int size, Comparator<? super T> cmp) {
+        T[] values = (T[]) elements;
+        Arrays.sort(values, 0, size, cmp);
+        int result = 0;
+        for (int i = 0; i < size; i++) {
+            Objects.requireNonNull(values[i]);
+            if (result == 0 || compare(values[result - 1], values[i], cmp) != 0) {
+                values[result++] = values[i];
+            }
+        }
+        return result;
+    }
+
+    @SuppressWarnings("unchecked")
+    static <T> int compare(T a, T b, Comparator<? super T> cmp) {
+        return cmp != null ? cmp.compare(a, b) : ((Comparable<? super T>) a).compareTo(b);
+    }
+
+    public static class Builder<T extends Comparable<T>> {
+        private final Comparator<? super T> cmp;
+        private Object[] elements = new Object[16];
+        private int size;
+
+        public Builder() {
+            this(null);
+        }
+
+        public Builder(Comparator<? super T> cmp) {
+            this.cmp = cmp;
+        }
+
+        public Builder<T> add(T element) {
+            if (size == elements.length) {
+                elements = Arrays.copyOf(elements, size * 2);
+            }
+            elements[size++] = Objects.requireNonNull(element);
+            return this;
+        }
+
+        public Builder<T> addAll(Collection<? extends T> collection) {
+            for (T element : collection) {
+                add(element);
+            }
+            return this;
+        }
+
+        public ArraySet<T> build() {
+            Object[] sorted = Arrays.copyOf(elements, size);
+            return ArraySet.<T>ofSorted(sorted, distinct(sorted, size, cmp), cmp);
+        }
     }
 
-    private T get(int index) {
+    T get(int index) {
         if (0 <= index && index < size()) {
             return rl.get(index);
         }
@@ -46,15 +137,15 @@ public class ArraySet<T extends Comparable<T>> extends AbstractSet<T> implements
         return result;
     }
 
-    private int compare(T a, T b) {
+    int compare(T a, T b) {
         if (this.cmp != null) {
             return this.cmp.compare(a, b);
         }
         return (a).compareTo(b);
     }
 
-    private int lowerIndexBound(T element, boolean lower, boolean inclusive) {
-        int index = Collections.binarySearch(this.rl, element, cmp);
+    int lowerIndexBound(T element, boolean lower, boolean inclusive) {
+        int index = search(element);
         int result;
         if (index >= 0) {
             result = index;
@@ -75,7 +166,7 @@ public class ArraySet<T extends Comparable<T>> extends AbstractSet<T> implements
     @Override
     @SuppressWarnings("unchecked")
     public boolean contains(Object o) {
-        return Collections.binarySearch(this.rl, (T) Objects.requireNonNull(o), cmp) >= 0;
+        return search((T) Objects.requireNonNull(o)) >= 0;
     }
 
     @Override
@@ -113,9 +204,75 @@ public class ArraySet<T extends Comparable<T>> extends AbstractSet<T> implements
         return this.rl.iterator();
     }
 
+    @Override
+    public Spliterator<T> spliterator() {
+        return new IndexSpliterator<>(this.rl, 0, size(), this.cmp);
+    }
+
+    // Splits the index range exactly in half, so parallel streams get balanced, sized parts.
+    private static class IndexSpliterator<T> implements Spliterator<T> {
+        private static final int CHARACTERISTICS = ORDERED | SORTED | DISTINCT | SIZED | SUBSIZED | NONNULL | IMMUTABLE;
+
+        private final ReverseList<T> list;
+        private final Comparator<? super T> cmp;
+        private int index;
+        private final int fence;
+
+        IndexSpliterator(ReverseList<T> list, int index, int fence, Comparator<? super T> cmp) {
+            this.list = list;
+            this.index = index;
+            this.fence = fence;
+            this.cmp = cmp;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super T> action) {
+            Objects.requireNonNull(action);
+            if (index < fence) {
+                action.accept(list.get(index++));
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super T> action) {
+            Objects.requireNonNull(action);
+            int from = index;
+            index = fence;
+            list.forEach(from, fence, action);
+        }
+
+        @Override
+        public Spliterator<T> trySplit() {
+            int mid = (index + fence) >>> 1;
+            if (mid <= index) {
+                return null;
+            }
+            Spliterator<T> prefix = new IndexSpliterator<>(list, index, mid, cmp);
+            index = mid;
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize() {
+            return fence - index;
+        }
+
+        @Override
+        public int characteristics() {
+            return CHARACTERISTICS;
+        }
+
+        @Override
+        public Comparator<? super T> getComparator() {
+            return cmp;
+        }
+    }
+
     @Override
     public NavigableSet<T> descendingSet() {
-        return new ArraySet<>(new ReverseList<>(this.rl, true), Collections.reverseOrder(this.cmp));
+        return new ArraySet<>(new ReverseList<>(this.rl, true), Collections.reverseOrder(this.cmp), this.index);
     }
 
     @Override
@@ -125,50 +282,27 @@ public class ArraySet<T extends Comparable<T>> extends AbstractSet<T> implements
 
     @Override
     public NavigableSet<T> subSet(T fromElement, boolean fromInclusive, T toElement, boolean toInclusive) throws IllegalArgumentException {
-        if(rl.isReversed == compare(fromElement, toElement) > 0) {
+        if (compare(fromElement, toElement) > 0) {
             throw new IllegalArgumentException();
         }
-        return subSetUnchecked(fromElement, fromInclusive, toElement, toInclusive);
-    }
-
-
-    private NavigableSet<T> subSetUnchecked(T fromElement, boolean fromInclusive, T toElement, boolean toInclusive) {
         int left = lowerIndexBound(fromElement, false, fromInclusive);
         int right = lowerIndexBound(toElement, true, toInclusive);
-
-//        if (left == -1 || right == -1) {
-//            return new ArraySet<>(new ReverseList<T>(), this.cmp);
-//        }
-//        if (left > right) {
-//            right++;
-//        }
-
-        return new ArraySet<>(this.rl.subList(left, right + 1), this.cmp);
+        return view(left, Math.max(left, right + 1));
     }
 
     @Override
     public NavigableSet<T> headSet(T toElement, boolean inclusive) {
-        if (this.rl.isEmpty()) {
-            return new ArraySet<>(new ReverseList<T>(), this.cmp);
-        }
-        if(compare(first(), toElement) > 0) {
-            return subSet(first(), true, toElement, inclusive);
-        } else {
-            return subSet(toElement, true, first(), inclusive);
-        }
+        return view(0, lowerIndexBound(toElement, true, inclusive) + 1);
     }
 
     @Override
     public NavigableSet<T> tailSet(T fromElement, boolean inclusive) {
-        if (this.rl.isEmpty()) {
-            return new ArraySet<>(new ReverseList<T>(), this.cmp);
-        }
+        return view(lowerIndexBound(fromElement, false, inclusive), size());
+    }
 
-        if(compare(last(), fromElement) < 0) {
-            return subSetUnchecked(fromElement, inclusive, last(), true);
-        } else {
-            return subSetUnchecked(last(), inclusive, fromElement, true);
-        }
+    // Views share the backing array, so chains of views take constant time each.
+    private ArraySet<T> view(int from, int to) {
+        return new ArraySet<>(this.rl.subList(from, to), this.cmp, this.index);
     }
 
     @Override
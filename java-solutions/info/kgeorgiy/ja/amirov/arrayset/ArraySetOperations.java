@@ -0,0 +1,193 @@
+package info.kgeorgiy.ja.amirov.arrayset;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+// Set algebra over two ArraySets with the same comparator, in one linear merge of both.
+// Parallel variants split the larger input in half, split the other one at the same element
+// with lowerIndexBound and merge the parts with fork/join.
+public final class ArraySetOperations {
+
+    private static final int SEQUENTIAL_THRESHOLD = 1 << 16;
+
+    private enum Operation {
+        UNION(true, true, true),
+        INTERSECTION(false, true, false),
+        DIFFERENCE(true, false, false),
+        SYMMETRIC_DIFFERENCE(true, false, true);
+
+        private final boolean onlyFirst;
+        private final boolean both;
+        private final boolean onlySecond;
+
+        Operation(boolean onlyFirst, boolean both, boolean onlySecond) {
+            this.onlyFirst = onlyFirst;
+            this.both = both;
+            this.onlySecond = onlySecond;
+        }
+    }
+
+    private ArraySetOperations() {
+    }
+
+    public static <T extends Comparable<T>> ArraySet<T> union(ArraySet<T> a, ArraySet<T> b) {
+        return apply(Operation.UNION, a, b, false);
+    }
+
+    public static <T extends Comparable<T>> ArraySet<T> intersection(ArraySet<T> a, ArraySet<T> b) {
+        return apply(Operation.INTERSECTION, a, b, false);
+    }
+
+    public static <T extends Comparable<T>> ArraySet<T> difference(ArraySet<T> a, ArraySet<T> b) {
+        return apply(Operation.DIFFERENCE, a, b, false);
+    }
+
+    public static <T extends Comparable<T>> ArraySet<T> symmetricDifference(ArraySet<T> a, ArraySet<T> b) {
+        return apply(Operation.SYMMETRIC_DIFFERENCE, a, b, false);
+    }
+
+    public static <T extends Comparable<T>> ArraySet<T> parallelUnion(ArraySet<T> a, ArraySet<T> b) {
+        return apply(Operation.UNION, a, b, true);
+    }
+
+    public static <T extends Comparable<T>> ArraySet<T> parallelIntersection(ArraySet<T> a, ArraySet<T> b) {
+        return apply(Operation.INTERSECTION, a, b, true);
+    }
+
+    public static <T extends Comparable<T>> ArraySet<T> parallelDifference(ArraySet<T> a, ArraySet<T> b) {
+        return apply(Operation.DIFFERENCE, a, b, true);
+    }
+
+    public static <T extends Comparable<T>> ArraySet<T> parallelSymmetricDifference(ArraySet<T> a, ArraySet<T> b) {
+        return apply(Operation.SYMMETRIC_DIFFERENCE, a, b, true);
+    }
+
+    private static <T extends Comparable<T>> ArraySet<T> apply(Operation operation, ArraySet<T> a, ArraySet<T> b,
+                                                              boolean parallel) {
+        if (!Objects.equals(a.comparator(), b.comparator())) {
+            throw new IllegalArgumentException("Sets are ordered by different comparators");
+        }
+        Object[] result = new Object[a.size() + b.size()];
+        int size;
+        if (parallel && result.length > SEQUENTIAL_THRESHOLD) {
+            Merge<T> merge = new Merge<>(operation, a, 0, a.size(), b, 0, b.size(), result);
+            ForkJoinPool.commonPool().invoke(merge);
+            size = merge.compact(0);
+        } else {
+            size = merge(operation, a, 0, a.size(), b, 0, b.size(), result, 0);
+        }
+        // The result keeps its array, which was sized for the worst case.
+        if (size < result.length) {
+            result = Arrays.copyOf(result, size);
+        }
+        return ArraySet.<T>ofSorted(result, size, a.comparator());
+    }
+
+    // Merges a[aFrom, aTo) with b[bFrom, bTo) into result starting at `position`, returns the number of elements.
+    private static <T extends Comparable<T>> int merge(Operation operation,
+                                                      ArraySet<T> a, int aFrom, int aTo,
+                                                      ArraySet<T> b, int bFrom, int bTo,
+                                                      Object[] result, int position) {
+        int start = position;
+        int i = aFrom;
+        int j = bFrom;
+        while (i < aTo && j < bTo) {
+            T x = a.get(i);
+            T y = b.get(j);
+            int c = a.compare(x, y);
+            if (c < 0) {
+                if (operation.onlyFirst) {
+                    result[position++] = x;
+                }
+                i++;
+            } else if (c > 0) {
+                if (operation.onlySecond) {
+                    result[position++] = y;
+                }
+                j++;
+            } else {
+                if (operation.both) {
+                    result[position++] = x;
+                }
+                i++;
+                j++;
+            }
+        }
+        if (operation.onlyFirst) {
+            for (; i < aTo; i++) {
+                result[position++] = a.get(i);
+            }
+        }
+        if (operation.onlySecond) {
+            for (; j < bTo; j++) {
+                result[position++] = b.get(j);
+            }
+        }
+        return position - start;
+    }
+
+    // Every part writes at aFrom + bFrom, its output never exceeds its input, so parts do not overlap.
+    // After all parts are done, compact moves them together in order.
+    private static class Merge<T extends Comparable<T>> extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final Operation operation;
+        private final ArraySet<T> a;
+        private final int aFrom;
+        private final int aTo;
+        private final ArraySet<T> b;
+        private final int bFrom;
+        private final int bTo;
+        private final Object[] result;
+        private Merge<T> left;
+        private Merge<T> right;
+        private int size;
+
+        Merge(Operation operation, ArraySet<T> a, int aFrom, int aTo, ArraySet<T> b, int bFrom, int bTo, Object[] result) {
+            this.operation = operation;
+            this.a = a;
+            this.aFrom = aFrom;
+            this.aTo = aTo;
+            this.b = b;
+            this.bFrom = bFrom;
+            this.bTo = bTo;
+            this.result = result;
+        }
+
+        @Override
+        protected void compute() {
+            int aSize = aTo - aFrom;
+            int bSize = bTo - bFrom;
+            if (aSize + bSize <= SEQUENTIAL_THRESHOLD) {
+                size = merge(operation, a, aFrom, aTo, b, bFrom, bTo, result, aFrom + bFrom);
+                return;
+            }
+            int aMid;
+            int bMid;
+            if (aSize >= bSize) {
+                aMid = (aFrom + aTo) >>> 1;
+                bMid = split(b, bFrom, bTo, a.get(aMid));
+            } else {
+                bMid = (bFrom + bTo) >>> 1;
+                aMid = split(a, aFrom, aTo, b.get(bMid));
+            }
+            left = new Merge<>(operation, a, aFrom, aMid, b, bFrom, bMid, result);
+            right = new Merge<>(operation, a, aMid, aTo, b, bMid, bTo, result);
+            invokeAll(left, right);
+        }
+
+        // First index in [from, to) whose element is not less than the pivot.
+        private static <T extends Comparable<T>> int split(ArraySet<T> set, int from, int to, T pivot) {
+            return Math.min(Math.max(set.lowerIndexBound(pivot, false, true), from), to);
+        }
+
+        int compact(int position) {
+            if (left == null) {
+                System.arraycopy(result, aFrom + bFrom, result, position, size);
+                return position + size;
+            }
+            return right.compact(left.compact(position));
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package info.kgeorgiy.ja.amirov.arrayset;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.ToLongFunction;
+
+// Static B+ tree over long keys of the elements, stored level by level in blocks of 8 keys, one cache line each.
+// The bottom level is the keys in the order of the set, so the position found there is already the rank,
+// and every upper level holds the last key of each block below it. A search scans one block per level
+// without data-dependent branches, and only loads elements to order those with a key equal to the target.
+// Keys have to be ordered like the elements but may repeat, so a prefix of a string is a valid key.
+class BTreeIndex<T> {
+    private static final int BLOCK = 8;
+
+    private final ReverseList<T> sorted;
+    private final Comparator<? super T> cmp;
+    private final ToLongFunction<? super T> key;
+    private final int size;
+    private final long[] keys;
+    // levels[0] is keys, the last level is a single block.
+    private final long[][] levels;
+
+    BTreeIndex(ReverseList<T> sorted, Comparator<? super T> cmp, ToLongFunction<? super T> key) {
+        this.sorted = sorted;
+        this.cmp = cmp;
+        this.key = key;
+        this.size = sorted.size();
+        this.keys = new long[padded(size)];
+        Arrays.fill(keys, Long.MAX_VALUE);
+        for (int i = 0; i < size; i++) {
+            keys[i] = key.applyAsLong(sorted.get(i));
+            if (i > 0 && keys[i - 1] > keys[i]) {
+                throw new IllegalArgumentException("Keys must be ordered like the elements");
+            }
+        }
+        List<long[]> levels = new ArrayList<>();
+        long[] level = keys;
+        levels.add(level);
+        while (level.length > BLOCK) {
+            int blocks = level.length / BLOCK;
+            long[] upper = new long[padded(blocks)];
+            Arrays.fill(upper, Long.MAX_VALUE);
+            for (int i = 0; i < blocks; i++) {
+                upper[i] = level[i * BLOCK + BLOCK - 1];
+            }
+            levels.add(upper);
+            level = upper;
+        }
+        this.levels = levels.toArray(long[][]::new);
+    }
+
+    private static int padded(int size) {
+        return Math.max(BLOCK, (size + BLOCK - 1) / BLOCK * BLOCK);
+    }
+
+    // First position whose key is not less than `target`. Padding keys are never less than it,
+    // and the answer is known to be a real position once the last key is checked.
+    private int lowerBound(long target) {
+        if (size == 0 || keys[size - 1] < target) {
+            return size;
+        }
+        int position = 0;
+        for (int i = levels.length - 1; i >= 0; i--) {
+            long[] level = levels[i];
+            int start = position * BLOCK;
+            int less = 0;
+            for (int j = start; j < start + BLOCK; j++) {
+                less += level[j] < target ? 1 : 0;
+            }
+            position = start + less;
+        }
+        return position;
+    }
+
+    // Same result as Collections.binarySearch over `view`, a window of the list the index was built on,
+    // read in the same or in the opposite direction.
+    int search(T element, ReverseList<T> view) {
+        int from = sorted.isReversed
+                ? sorted.offset() + size - view.offset() - view.size()
+                : view.offset() - sorted.offset();
+        int to = from + view.size();
+        int found = search(element, from, to);
+        if (view.isReversed == sorted.isReversed) {
+            return found >= 0 ? found - from : found + from;
+        }
+        return found >= 0 ? to - 1 - found : -(to + found + 1) - 1;
+    }
+
+    // Binary search over positions [from, to) of the indexed list, with absolute positions in the result.
+    private int search(T element, int from, int to) {
+        long target = key.applyAsLong(element);
+        int first = Math.min(Math.max(lowerBound(target), from), to);
+        // Keys equal to the target fill [first, end): gallop over them, usually a single step, then bisect.
+        int low = first;
+        int high = first;
+        int step = 1;
+        while (high < to && keys[high] == target) {
+            low = high + 1;
+            high = Math.min(to, high + step);
+            step <<= 1;
+        }
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (keys[mid] == target) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        high = low - 1;
+        low = first;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int c = ArraySet.compare(sorted.get(mid), element, cmp);
+            if (c < 0) {
+                low = mid + 1;
+            } else if (c > 0) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -low - 1;
+    }
+}
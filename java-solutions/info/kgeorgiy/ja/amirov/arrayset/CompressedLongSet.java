@@ -0,0 +1,213 @@
+package info.kgeorgiy.ja.amirov.arrayset;
+
+import java.util.*;
+
+// Sorted set of longs compressed with frame of reference: values are split into blocks of 128,
+// each block stores its first value and the differences to it, bit-packed with the width of the largest one.
+// The first values form a skip index, a lookup binary searches it and then unpacks values of a single block,
+// and any element can be unpacked in place, so views and navigation work like in LongArraySet.
+public class CompressedLongSet extends PrimitiveIndexedSet<Long> {
+
+    private static final int BLOCK_SHIFT = 7;
+    private static final int BLOCK = 1 << BLOCK_SHIFT;
+
+    private static final class Storage {
+        private final int size;
+        private final long[] firsts;
+        private final byte[] widths;
+        private final long[] offsets;
+        private final long[] words;
+
+        private Storage(long[] sorted, int size) {
+            int blocks = (size + BLOCK - 1) >>> BLOCK_SHIFT;
+            this.size = size;
+            this.firsts = new long[blocks];
+            this.widths = new byte[blocks];
+            this.offsets = new long[blocks];
+            long bits = 0;
+            for (int block = 0; block < blocks; block++) {
+                int start = block << BLOCK_SHIFT;
+                int end = Math.min(size, start + BLOCK);
+                firsts[block] = sorted[start];
+                widths[block] = (byte) (Long.SIZE - Long.numberOfLeadingZeros(sorted[end - 1] - sorted[start]));
+                offsets[block] = bits;
+                bits += (long) widths[block] * (end - start);
+            }
+            this.words = new long[Math.toIntExact((bits + Long.SIZE - 1) / Long.SIZE) + 1];
+            for (int i = 0; i < size; i++) {
+                int block = i >>> BLOCK_SHIFT;
+                pack(offsets[block] + (long) widths[block] * (i & (BLOCK - 1)), widths[block], sorted[i] - firsts[block]);
+            }
+        }
+
+        private void pack(long bit, int width, long value) {
+            if (width == 0) {
+                return;
+            }
+            int word = (int) (bit >>> 6);
+            int shift = (int) (bit & 63);
+            words[word] |= value << shift;
+            if (shift + width > Long.SIZE) {
+                words[word + 1] |= value >>> (Long.SIZE - shift);
+            }
+        }
+
+        // Difference of the element to the first one of its block, compared unsigned.
+        private long delta(int index) {
+            int block = index >>> BLOCK_SHIFT;
+            int width = widths[block];
+            if (width == 0) {
+                return 0;
+            }
+            long bit = offsets[block] + (long) width * (index & (BLOCK - 1));
+            int word = (int) (bit >>> 6);
+            int shift = (int) (bit & 63);
+            long value = words[word] >>> shift;
+            if (shift + width > Long.SIZE) {
+                value |= words[word + 1] << (Long.SIZE - shift);
+            }
+            return width == Long.SIZE ? value : value & ((1L << width) - 1);
+        }
+
+        long get(int index) {
+            return firsts[index >>> BLOCK_SHIFT] + delta(index);
+        }
+
+        int search(long value) {
+            int block = Arrays.binarySearch(firsts, value);
+            if (block >= 0) {
+                return block << BLOCK_SHIFT;
+            }
+            block = -block - 2;
+            if (block < 0) {
+                return -1;
+            }
+            long target = value - firsts[block];
+            int low = (block << BLOCK_SHIFT) + 1;
+            int high = Math.min(size, (block + 1) << BLOCK_SHIFT) - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                int c = Long.compareUnsigned(delta(mid), target);
+                if (c < 0) {
+                    low = mid + 1;
+                } else if (c > 0) {
+                    high = mid - 1;
+                } else {
+                    return mid;
+                }
+            }
+            return -low - 1;
+        }
+
+        long bytes() {
+            return (long) firsts.length * (Long.BYTES + 1 + Long.BYTES) + (long) words.length * Long.BYTES;
+        }
+    }
+
+    private final Storage storage;
+
+    public CompressedLongSet() {
+        this(new long[0]);
+    }
+
+    public CompressedLongSet(long... values) {
+        this(compress(values.clone()));
+    }
+
+    public CompressedLongSet(Collection<? extends Long> collection) {
+        this(compress(collection.stream().mapToLong(Long::longValue).toArray()));
+    }
+
+    private CompressedLongSet(Storage storage) {
+        this(storage, 0, storage.size, false);
+    }
+
+    private CompressedLongSet(Storage storage, int from, int to, boolean descending) {
+        super(from, to, descending);
+        this.storage = storage;
+    }
+
+    private static Storage compress(long[] values) {
+        Arrays.sort(values);
+        int size = 0;
+        for (int i = 0; i < values.length; i++) {
+            if (i == 0 || values[i] != values[size - 1]) {
+                values[size++] = values[i];
+            }
+        }
+        return new Storage(values, size);
+    }
+
+    @Override
+    Long elementAt(int index) {
+        return storage.get(index);
+    }
+
+    @Override
+    long valueAt(int index) {
+        return storage.get(index);
+    }
+
+    // Storage.search covers the whole set, the result is moved into [from, to) of this view.
+    @Override
+    int searchValue(long value) {
+        int found = storage.search(value);
+        if (found >= 0 && from <= found && found < to) {
+            return found;
+        }
+        int insertion = found >= 0 ? found : -found - 1;
+        return -Math.min(Math.max(insertion, from), to) - 1;
+    }
+
+    @Override
+    CompressedLongSet view(int from, int to, boolean descending) {
+        return new CompressedLongSet(storage, from, to, descending);
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return contains((long) (Long) Objects.requireNonNull(o));
+    }
+
+    public boolean contains(long value) {
+        return containsValue(value);
+    }
+
+    public long getLong(int position) {
+        return value(position);
+    }
+
+    public long firstLong() {
+        return firstValue();
+    }
+
+    public long lastLong() {
+        return lastValue();
+    }
+
+    // Positions of the neighbours of `value`, or -1 if there is none.
+    public int lowerIndex(long value) {
+        return neighbour(value, true, false);
+    }
+
+    public int floorIndex(long value) {
+        return neighbour(value, true, true);
+    }
+
+    public int ceilingIndex(long value) {
+        return neighbour(value, false, true);
+    }
+
+    public int higherIndex(long value) {
+        return neighbour(value, false, false);
+    }
+
+    public long[] toLongArray() {
+        return toValueArray();
+    }
+
+    // Approximate memory taken by the compressed values, shared with all views.
+    public long sizeInBytes() {
+        return storage.bytes();
+    }
+}
@@ -0,0 +1,661 @@
+package info.kgeorgiy.ja.amirov.arrayset;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Predicate;
+
+// Mutable ArraySet for read-mostly data. The contents are an immutable state: the main ArraySet, a small
+// sorted set of added elements and a small set of elements removed from the main one. Readers take the
+// current state without locking, writers copy the small sets under a lock and publish a new state.
+// Once the delta grows past `mergeThreshold` it is merged into a new main set in one linear pass.
+// Views are live and write through, like the views of TreeSet. Iterators walk a merged snapshot,
+// so they do not see later writes, and their remove goes to the set.
+public class ConcurrentArraySet<T extends Comparable<T>> extends AbstractSet<T> implements NavigableSet<T> {
+
+    private static final int DEFAULT_MERGE_THRESHOLD = 1024;
+
+    private record State<T extends Comparable<T>>(ArraySet<T> main, ArraySet<T> added, ArraySet<T> removed) {
+        int size() {
+            return main.size() - removed.size() + added.size();
+        }
+
+        boolean merged() {
+            return added.isEmpty() && removed.isEmpty();
+        }
+    }
+
+    private final Comparator<? super T> cmp;
+    private final int mergeThreshold;
+    private final AtomicReference<State<T>> state;
+    private final Object writeLock = new Object();
+
+    public ConcurrentArraySet() {
+        this(List.of(), null);
+    }
+
+    public ConcurrentArraySet(Comparator<? super T> cmp) {
+        this(List.of(), cmp);
+    }
+
+    public ConcurrentArraySet(Collection<? extends T> collection, Comparator<? super T> cmp) {
+        this(collection, cmp, DEFAULT_MERGE_THRESHOLD);
+    }
+
+    public ConcurrentArraySet(Collection<? extends T> collection, Comparator<? super T> cmp, int mergeThreshold) {
+        if (mergeThreshold <= 0) {
+            throw new IllegalArgumentException("Merge threshold should be positive");
+        }
+        this.cmp = cmp;
+        this.mergeThreshold = mergeThreshold;
+        ArraySet<T> empty = new ArraySet<T>(cmp);
+        this.state = new AtomicReference<>(new State<>(new ArraySet<>(collection, cmp), empty, empty));
+    }
+
+    private int compare(T a, T b) {
+        return cmp != null ? cmp.compare(a, b) : a.compareTo(b);
+    }
+
+    // Current contents as an immutable ArraySet. Pending changes are merged and the result is published,
+    // unless a writer has changed the set in the meantime.
+    public ArraySet<T> snapshot() {
+        State<T> current = state.get();
+        if (current.merged()) {
+            return current.main();
+        }
+        State<T> merged = merge(current);
+        state.compareAndSet(current, merged);
+        return merged.main();
+    }
+
+    private State<T> merge(State<T> current) {
+        List<T> result = new ArrayList<>(current.size());
+        Iterator<T> main = current.main().iterator();
+        Iterator<T> added = current.added().iterator();
+        T m = nextLive(main, current.removed());
+        T a = added.hasNext() ? added.next() : null;
+        while (m != null || a != null) {
+            if (a == null || m != null && compare(m, a) < 0) {
+                result.add(m);
+                m = nextLive(main, current.removed());
+            } else {
+                result.add(a);
+                a = added.hasNext() ? added.next() : null;
+            }
+        }
+        ArraySet<T> empty = new ArraySet<T>(cmp);
+        return new State<>(new ArraySet<>(result, cmp), empty, empty);
+    }
+
+    private static <T extends Comparable<T>> T nextLive(Iterator<T> iterator, ArraySet<T> removed) {
+        while (iterator.hasNext()) {
+            T element = iterator.next();
+            if (!removed.contains(element)) {
+                return element;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public boolean add(T element) {
+        Objects.requireNonNull(element);
+        synchronized (writeLock) {
+            State<T> current = state.get();
+            State<T> next;
+            if (current.removed().contains(element)) {
+                next = new State<>(current.main(), current.added(), without(current.removed(), element));
+            } else if (current.main().contains(element) || current.added().contains(element)) {
+                return false;
+            } else {
+                next = new State<>(current.main(), with(current.added(), element), current.removed());
+            }
+            publish(next);
+            return true;
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public boolean remove(Object o) {
+        T element = (T) Objects.requireNonNull(o);
+        synchronized (writeLock) {
+            State<T> current = state.get();
+            State<T> next;
+            if (current.added().contains(element)) {
+                next = new State<>(current.main(), without(current.added(), element), current.removed());
+            } else if (current.main().contains(element) && !current.removed().contains(element)) {
+                next = new State<>(current.main(), current.added(), with(current.removed(), element));
+            } else {
+                return false;
+            }
+            publish(next);
+            return true;
+        }
+    }
+
+    private void publish(State<T> next) {
+        state.set(next.added().size() + next.removed().size() > mergeThreshold ? merge(next) : next);
+    }
+
+    // The small sets stay sorted: the element is put into or taken out of a copy of the array
+    // at its binary search position, so a write costs one copy of the delta and no sorting.
+    private ArraySet<T> with(ArraySet<T> set, T element) {
+        int index = set.lowerIndexBound(element, false, true);
+        Object[] elements = set.toArray();
+        Object[] result = new Object[elements.length + 1];
+        System.arraycopy(elements, 0, result, 0, index);
+        result[index] = element;
+        System.arraycopy(elements, index, result, index + 1, elements.length - index);
+        return ArraySet.<T>ofSorted(result, result.length, cmp);
+    }
+
+    // `element` is in the set.
+    private ArraySet<T> without(ArraySet<T> set, T element) {
+        int index = set.lowerIndexBound(element, false, true);
+        Object[] elements = set.toArray();
+        Object[] result = new Object[elements.length - 1];
+        System.arraycopy(elements, 0, result, 0, index);
+        System.arraycopy(elements, index + 1, result, index, result.length - index);
+        return ArraySet.<T>ofSorted(result, result.length, cmp);
+    }
+
+    // Bulk changes rebuild the main set once instead of going through the delta.
+    @Override
+    public boolean addAll(Collection<? extends T> collection) {
+        synchronized (writeLock) {
+            ArraySet<T> current = snapshot();
+            ArraySet<T> next = new ArraySet.Builder<T>(cmp).addAll(current).addAll(collection).build();
+            if (next.size() == current.size()) {
+                return false;
+            }
+            ArraySet<T> empty = new ArraySet<T>(cmp);
+            state.set(new State<>(next, empty, empty));
+            return true;
+        }
+    }
+
+    @Override
+    public boolean removeIf(Predicate<? super T> filter) {
+        synchronized (writeLock) {
+            ArraySet<T> current = snapshot();
+            List<T> kept = new ArrayList<>(current.size());
+            for (T element : current) {
+                if (!filter.test(element)) {
+                    kept.add(element);
+                }
+            }
+            if (kept.size() == current.size()) {
+                return false;
+            }
+            ArraySet<T> empty = new ArraySet<T>(cmp);
+            state.set(new State<>(new ArraySet<>(kept, cmp), empty, empty));
+            return true;
+        }
+    }
+
+    @Override
+    public boolean removeAll(Collection<?> collection) {
+        return removeIf(collection::contains);
+    }
+
+    @Override
+    public boolean retainAll(Collection<?> collection) {
+        return removeIf(element -> !collection.contains(element));
+    }
+
+    @Override
+    public void clear() {
+        synchronized (writeLock) {
+            ArraySet<T> empty = new ArraySet<T>(cmp);
+            state.set(new State<>(empty, empty, empty));
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public boolean contains(Object o) {
+        T element = (T) Objects.requireNonNull(o);
+        State<T> current = state.get();
+        return current.added().contains(element)
+                || current.main().contains(element) && !current.removed().contains(element);
+    }
+
+    @Override
+    public int size() {
+        return state.get().size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    // The closest element of the main set that is not removed, moving up or down starting from `element`.
+    private T live(State<T> current, T element, boolean up) {
+        while (element != null && current.removed().contains(element)) {
+            element = up ? current.main().higher(element) : current.main().lower(element);
+        }
+        return element;
+    }
+
+    private T closest(T a, T b, boolean up) {
+        if (a == null || b == null) {
+            return a == null ? b : a;
+        }
+        return (compare(a, b) < 0) == up ? a : b;
+    }
+
+    @Override
+    public T lower(T t) {
+        State<T> current = state.get();
+        return closest(live(current, current.main().lower(t), false), current.added().lower(t), false);
+    }
+
+    @Override
+    public T floor(T t) {
+        State<T> current = state.get();
+        return closest(live(current, current.main().floor(t), false), current.added().floor(t), false);
+    }
+
+    @Override
+    public T ceiling(T t) {
+        State<T> current = state.get();
+        return closest(live(current, current.main().ceiling(t), true), current.added().ceiling(t), true);
+    }
+
+    @Override
+    public T higher(T t) {
+        State<T> current = state.get();
+        return closest(live(current, current.main().higher(t), true), current.added().higher(t), true);
+    }
+
+    // The first (`up`) or the last element, or null if the set is empty.
+    private T edge(boolean up) {
+        State<T> current = state.get();
+        ArraySet<T> main = current.main();
+        ArraySet<T> added = current.added();
+        return closest(
+                main.isEmpty() ? null : live(current, up ? main.first() : main.last(), up),
+                added.isEmpty() ? null : up ? added.first() : added.last(), up);
+    }
+
+    private static <T> T checked(T element) {
+        if (element == null) {
+            throw new NoSuchElementException();
+        }
+        return element;
+    }
+
+    @Override
+    public T first() {
+        return checked(edge(true));
+    }
+
+    @Override
+    public T last() {
+        return checked(edge(false));
+    }
+
+    private T poll(T element) {
+        if (element != null) {
+            remove(element);
+        }
+        return element;
+    }
+
+    @Override
+    public T pollFirst() {
+        synchronized (writeLock) {
+            return poll(edge(true));
+        }
+    }
+
+    @Override
+    public T pollLast() {
+        synchronized (writeLock) {
+            return poll(edge(false));
+        }
+    }
+
+    // Iterator over a snapshot that removes the returned elements from the set.
+    private Iterator<T> removing(Iterator<T> iterator) {
+        return new Iterator<>() {
+            private T last;
+
+            @Override
+            public boolean hasNext() {
+                return iterator.hasNext();
+            }
+
+            @Override
+            public T next() {
+                return last = iterator.next();
+            }
+
+            @Override
+            public void remove() {
+                if (last == null) {
+                    throw new IllegalStateException();
+                }
+                ConcurrentArraySet.this.remove(last);
+                last = null;
+            }
+        };
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        return removing(snapshot().iterator());
+    }
+
+    @Override
+    public Spliterator<T> spliterator() {
+        return snapshot().spliterator();
+    }
+
+    @Override
+    public NavigableSet<T> descendingSet() {
+        return new Range(null, false, null, false, true);
+    }
+
+    @Override
+    public Iterator<T> descendingIterator() {
+        return removing(snapshot().descendingIterator());
+    }
+
+    @Override
+    public NavigableSet<T> subSet(T fromElement, boolean fromInclusive, T toElement, boolean toInclusive) {
+        if (compare(fromElement, toElement) > 0) {
+            throw new IllegalArgumentException();
+        }
+        return new Range(fromElement, fromInclusive, toElement, toInclusive, false);
+    }
+
+    @Override
+    public NavigableSet<T> headSet(T toElement, boolean inclusive) {
+        return new Range(null, false, Objects.requireNonNull(toElement), inclusive, false);
+    }
+
+    @Override
+    public NavigableSet<T> tailSet(T fromElement, boolean inclusive) {
+        return new Range(Objects.requireNonNull(fromElement), inclusive, null, false, false);
+    }
+
+    @Override
+    public SortedSet<T> subSet(T fromElement, T toElement) {
+        return subSet(fromElement, true, toElement, false);
+    }
+
+    @Override
+    public SortedSet<T> headSet(T toElement) {
+        return headSet(toElement, false);
+    }
+
+    @Override
+    public SortedSet<T> tailSet(T fromElement) {
+        return tailSet(fromElement, true);
+    }
+
+    @Override
+    public Comparator<? super T> comparator() {
+        return cmp;
+    }
+
+    // Live view of the elements between two bounds in either direction, reading and writing through to the set.
+    // A null bound is open. Like the views of TreeSet, it rejects elements and bounds outside of its range.
+    private final class Range extends AbstractSet<T> implements NavigableSet<T> {
+        private final T low;
+        private final boolean lowInclusive;
+        private final T high;
+        private final boolean highInclusive;
+        private final boolean descending;
+
+        private Range(T low, boolean lowInclusive, T high, boolean highInclusive, boolean descending) {
+            this.low = low;
+            this.lowInclusive = lowInclusive;
+            this.high = high;
+            this.highInclusive = highInclusive;
+            this.descending = descending;
+        }
+
+        private boolean tooLow(T element) {
+            if (low == null) {
+                return false;
+            }
+            int c = compare(element, low);
+            return c < 0 || c == 0 && !lowInclusive;
+        }
+
+        private boolean tooHigh(T element) {
+            if (high == null) {
+                return false;
+            }
+            int c = compare(element, high);
+            return c > 0 || c == 0 && !highInclusive;
+        }
+
+        private boolean inRange(T element) {
+            return !tooLow(element) && !tooHigh(element);
+        }
+
+        // An exclusive bound of a narrower view may be equal to an exclusive bound of this one.
+        private boolean inRange(T element, boolean inclusive) {
+            return inclusive
+                    ? inRange(element)
+                    : (low == null || compare(element, low) >= 0) && (high == null || compare(element, high) <= 0);
+        }
+
+        private T bounded(T element) {
+            return element != null && inRange(element) ? element : null;
+        }
+
+        // Navigation in the ascending order of the set, null if there is no such element in the range.
+        private T lowest() {
+            if (low == null) {
+                return bounded(edge(true));
+            }
+            return bounded(lowInclusive ? ConcurrentArraySet.this.ceiling(low) : ConcurrentArraySet.this.higher(low));
+        }
+
+        private T highest() {
+            if (high == null) {
+                return bounded(edge(false));
+            }
+            return bounded(highInclusive ? ConcurrentArraySet.this.floor(high) : ConcurrentArraySet.this.lower(high));
+        }
+
+        private T above(T element, boolean inclusive) {
+            if (tooLow(element)) {
+                return lowest();
+            }
+            return bounded(inclusive ? ConcurrentArraySet.this.ceiling(element) : ConcurrentArraySet.this.higher(element));
+        }
+
+        private T below(T element, boolean inclusive) {
+            if (tooHigh(element)) {
+                return highest();
+            }
+            return bounded(inclusive ? ConcurrentArraySet.this.floor(element) : ConcurrentArraySet.this.lower(element));
+        }
+
+        private NavigableSet<T> snapshot() {
+            NavigableSet<T> set = ConcurrentArraySet.this.snapshot();
+            if (low != null) {
+                set = set.tailSet(low, lowInclusive);
+            }
+            if (high != null) {
+                set = set.headSet(high, highInclusive);
+            }
+            return descending ? set.descendingSet() : set;
+        }
+
+        // Narrower view with bounds in the ascending order, a null bound is the one of this view.
+        private Range range(T newLow, boolean newLowInclusive, T newHigh, boolean newHighInclusive,
+                            boolean newDescending) {
+            if (newLow != null && !inRange(newLow, newLowInclusive)
+                    || newHigh != null && !inRange(newHigh, newHighInclusive)) {
+                throw new IllegalArgumentException("Bound is out of range");
+            }
+            return new Range(
+                    newLow != null ? newLow : low, newLow != null ? newLowInclusive : lowInclusive,
+                    newHigh != null ? newHigh : high, newHigh != null ? newHighInclusive : highInclusive,
+                    newDescending);
+        }
+
+        @Override
+        public boolean add(T element) {
+            if (!inRange(Objects.requireNonNull(element))) {
+                throw new IllegalArgumentException("Element is out of range");
+            }
+            return ConcurrentArraySet.this.add(element);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public boolean remove(Object o) {
+            return inRange((T) Objects.requireNonNull(o)) && ConcurrentArraySet.this.remove(o);
+        }
+
+        @Override
+        public boolean removeIf(Predicate<? super T> filter) {
+            return ConcurrentArraySet.this.removeIf(element -> inRange(element) && filter.test(element));
+        }
+
+        @Override
+        public boolean removeAll(Collection<?> collection) {
+            return removeIf(collection::contains);
+        }
+
+        @Override
+        public boolean retainAll(Collection<?> collection) {
+            return removeIf(element -> !collection.contains(element));
+        }
+
+        @Override
+        public void clear() {
+            removeIf(element -> true);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public boolean contains(Object o) {
+            return inRange((T) Objects.requireNonNull(o)) && ConcurrentArraySet.this.contains(o);
+        }
+
+        @Override
+        public int size() {
+            return snapshot().size();
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return lowest() == null;
+        }
+
+        @Override
+        public T lower(T t) {
+            return descending ? above(t, false) : below(t, false);
+        }
+
+        @Override
+        public T floor(T t) {
+            return descending ? above(t, true) : below(t, true);
+        }
+
+        @Override
+        public T ceiling(T t) {
+            return descending ? below(t, true) : above(t, true);
+        }
+
+        @Override
+        public T higher(T t) {
+            return descending ? below(t, false) : above(t, false);
+        }
+
+        @Override
+        public T first() {
+            return checked(descending ? highest() : lowest());
+        }
+
+        @Override
+        public T last() {
+            return checked(descending ? lowest() : highest());
+        }
+
+        @Override
+        public T pollFirst() {
+            synchronized (writeLock) {
+                return poll(descending ? highest() : lowest());
+            }
+        }
+
+        @Override
+        public T pollLast() {
+            synchronized (writeLock) {
+                return poll(descending ? lowest() : highest());
+            }
+        }
+
+        @Override
+        public Iterator<T> iterator() {
+            return removing(snapshot().iterator());
+        }
+
+        @Override
+        public Iterator<T> descendingIterator() {
+            return removing(snapshot().descendingIterator());
+        }
+
+        @Override
+        public NavigableSet<T> descendingSet() {
+            return new Range(low, lowInclusive, high, highInclusive, !descending);
+        }
+
+        @Override
+        public NavigableSet<T> subSet(T fromElement, boolean fromInclusive, T toElement, boolean toInclusive) {
+            int c = compare(fromElement, toElement);
+            if (descending ? c < 0 : c > 0) {
+                throw new IllegalArgumentException();
+            }
+            return descending
+                    ? range(toElement, toInclusive, fromElement, fromInclusive, true)
+                    : range(fromElement, fromInclusive, toElement, toInclusive, false);
+        }
+
+        @Override
+        public NavigableSet<T> headSet(T toElement, boolean inclusive) {
+            Objects.requireNonNull(toElement);
+            return descending
+                    ? range(toElement, inclusive, null, false, true)
+                    : range(null, false, toElement, inclusive, false);
+        }
+
+        @Override
+        public NavigableSet<T> tailSet(T fromElement, boolean inclusive) {
+            Objects.requireNonNull(fromElement);
+            return descending
+                    ? range(null, false, fromElement, inclusive, true)
+                    : range(fromElement, inclusive, null, false, false);
+        }
+
+        @Override
+        public SortedSet<T> subSet(T fromElement, T toElement) {
+            return subSet(fromElement, true, toElement, false);
+        }
+
+        @Override
+        public SortedSet<T> headSet(T toElement) {
+            return headSet(toElement, false);
+        }
+
+        @Override
+        public SortedSet<T> tailSet(T fromElement) {
+            return tailSet(fromElement, true);
+        }
+
+        @Override
+        public Comparator<? super T> comparator() {
+            return descending ? Collections.reverseOrder(cmp) : cmp;
+        }
+    }
+}
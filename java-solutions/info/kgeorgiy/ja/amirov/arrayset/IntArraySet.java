@@ -0,0 +1,108 @@
+package info.kgeorgiy.ja.amirov.arrayset;
+
+import java.util.*;
+
+// ArraySet of ints in natural order, kept in a sorted int[] shared by all views.
+// Primitive accessors take and return plain ints, positions are indices in the iteration order.
+public class IntArraySet extends PrimitiveIndexedSet<Integer> {
+
+    private final int[] values;
+
+    public IntArraySet() {
+        this(new int[0], false);
+    }
+
+    public IntArraySet(int... values) {
+        this(distinct(values.clone()), false);
+    }
+
+    public IntArraySet(Collection<? extends Integer> collection) {
+        this(distinct(collection.stream().mapToInt(Integer::intValue).toArray()), false);
+    }
+
+    private IntArraySet(int[] sorted, boolean descending) {
+        this(sorted, 0, sorted.length, descending);
+    }
+
+    private IntArraySet(int[] values, int from, int to, boolean descending) {
+        super(from, to, descending);
+        this.values = values;
+    }
+
+    private static int[] distinct(int[] values) {
+        Arrays.sort(values);
+        int size = 0;
+        for (int i = 0; i < values.length; i++) {
+            if (i == 0 || values[i] != values[size - 1]) {
+                values[size++] = values[i];
+            }
+        }
+        return size == values.length ? values : Arrays.copyOf(values, size);
+    }
+
+    @Override
+    Integer elementAt(int index) {
+        return values[index];
+    }
+
+    @Override
+    long valueAt(int index) {
+        return values[index];
+    }
+
+    @Override
+    int searchValue(long value) {
+        return Arrays.binarySearch(values, from, to, (int) value);
+    }
+
+    @Override
+    IntArraySet view(int from, int to, boolean descending) {
+        return new IntArraySet(values, from, to, descending);
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return contains((int) (Integer) Objects.requireNonNull(o));
+    }
+
+    public boolean contains(int value) {
+        return containsValue(value);
+    }
+
+    public int getInt(int position) {
+        return (int) value(position);
+    }
+
+    public int firstInt() {
+        return (int) firstValue();
+    }
+
+    public int lastInt() {
+        return (int) lastValue();
+    }
+
+    // Positions of the neighbours of `value`, or -1 if there is none.
+    public int lowerIndex(int value) {
+        return neighbour(value, true, false);
+    }
+
+    public int floorIndex(int value) {
+        return neighbour(value, true, true);
+    }
+
+    public int ceilingIndex(int value) {
+        return neighbour(value, false, true);
+    }
+
+    public int higherIndex(int value) {
+        return neighbour(value, false, false);
+    }
+
+    public int[] toIntArray() {
+        int[] result = new int[size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = values[storageIndex(i)];
+        }
+        return result;
+    }
+}
@@ -0,0 +1,104 @@
+package info.kgeorgiy.ja.amirov.arrayset;
+
+import java.util.*;
+
+// ArraySet of longs in natural order, kept in a sorted long[] shared by all views.
+// Primitive accessors take and return plain longs, positions are indices in the iteration order.
+public class LongArraySet extends PrimitiveIndexedSet<Long> {
+
+    private final long[] values;
+
+    public LongArraySet() {
+        this(new long[0], false);
+    }
+
+    public LongArraySet(long... values) {
+        this(distinct(values.clone()), false);
+    }
+
+    public LongArraySet(Collection<? extends Long> collection) {
+        this(distinct(collection.stream().mapToLong(Long::longValue).toArray()), false);
+    }
+
+    private LongArraySet(long[] sorted, boolean descending) {
+        this(sorted, 0, sorted.length, descending);
+    }
+
+    private LongArraySet(long[] values, int from, int to, boolean descending) {
+        super(from, to, descending);
+        this.values = values;
+    }
+
+    private static long[] distinct(long[] values) {
+        Arrays.sort(values);
+        int size = 0;
+        for (int i = 0; i < values.length; i++) {
+            if (i == 0 || values[i] != values[size - 1]) {
+                values[size++] = values[i];
+            }
+        }
+        return size == values.length ? values : Arrays.copyOf(values, size);
+    }
+
+    @Override
+    Long elementAt(int index) {
+        return values[index];
+    }
+
+    @Override
+    long valueAt(int index) {
+        return values[index];
+    }
+
+    @Override
+    int searchValue(long value) {
+        return Arrays.binarySearch(values, from, to, value);
+    }
+
+    @Override
+    LongArraySet view(int from, int to, boolean descending) {
+        return new LongArraySet(values, from, to, descending);
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return contains((long) (Long) Objects.requireNonNull(o));
+    }
+
+    public boolean contains(long value) {
+        return containsValue(value);
+    }
+
+    public long getLong(int position) {
+        return value(position);
+    }
+
+    public long firstLong() {
+        return firstValue();
+    }
+
+    public long lastLong() {
+        return lastValue();
+    }
+
+    // Positions of the neighbours of `value`, or -1 if there is none.
+    public int lowerIndex(long value) {
+        return neighbour(value, true, false);
+    }
+
+    public int floorIndex(long value) {
+        return neighbour(value, true, true);
+    }
+
+    public int ceilingIndex(long value) {
+        return neighbour(value, false, true);
+    }
+
+    public int higherIndex(long value) {
+        return neighbour(value, false, false);
+    }
+
+    public long[] toLongArray() {
+        return toValueArray();
+    }
+}
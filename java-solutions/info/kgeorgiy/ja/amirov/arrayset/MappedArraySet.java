@@ -0,0 +1,185 @@
+package info.kgeorgiy.ja.amirov.arrayset;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+// Read-only sorted set whose keys stay in a memory-mapped file, so opening it only maps the file
+// and the keys are never on the heap. File layout, big-endian:
+//   int magic, int key width or -1, long count, int max key length, int reserved,
+//   for variable width keys: long[count + 1] offsets of the keys relative to the data start,
+//   key data in ascending order.
+// The file is mapped in 1 GB segments, each overlapping the next one by the longest key,
+// so every key can be read from the segment it starts in.
+public class MappedArraySet<T> extends AbstractIndexedSet<T> {
+
+    private static final int MAGIC = 0x4d415331;
+    private static final int HEADER = 24;
+    private static final int SEGMENT_SHIFT = 30;
+    private static final long SEGMENT = 1L << SEGMENT_SHIFT;
+    private static final int BUF_SIZE = 1 << 16;
+
+    private record Storage<T>(MappedByteBuffer[] segments, KeyCodec<T> codec, Comparator<? super T> cmp,
+                              int width, long data) {
+        private ByteBuffer segment(long position) {
+            return segments[(int) (position >>> SEGMENT_SHIFT)];
+        }
+
+        private long readLong(long position) {
+            return segment(position).getLong((int) (position & (SEGMENT - 1)));
+        }
+
+        T get(int index) {
+            long start;
+            int length;
+            if (width == KeyCodec.VARIABLE) {
+                long offset = HEADER + (long) index * Long.BYTES;
+                start = data + readLong(offset);
+                length = (int) (data + readLong(offset + Long.BYTES) - start);
+            } else {
+                start = data + (long) index * width;
+                length = width;
+            }
+            return codec.decode(segment(start), (int) (start & (SEGMENT - 1)), length);
+        }
+
+        @SuppressWarnings("unchecked")
+        int compare(T a, T b) {
+            return cmp != null ? cmp.compare(a, b) : ((Comparable<? super T>) a).compareTo(b);
+        }
+    }
+
+    private final Storage<T> storage;
+
+    private MappedArraySet(Storage<T> storage, int from, int to, boolean descending) {
+        super(from, to, descending);
+        this.storage = storage;
+    }
+
+    // `cmp` must be the order the keys were written in, null for natural order.
+    public static <T> MappedArraySet<T> open(Path file, KeyCodec<T> codec, Comparator<? super T> cmp) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            ByteBuffer header = ByteBuffer.allocate(HEADER);
+            while (header.hasRemaining() && channel.read(header, header.position()) > 0) {
+                // keep reading
+            }
+            if (header.hasRemaining() || header.getInt(0) != MAGIC) {
+                throw new IOException("Not a mapped set: " + file);
+            }
+            int width = header.getInt(4);
+            long count = header.getLong(8);
+            int maxLength = header.getInt(16);
+            if (width != codec.width()) {
+                throw new IOException(String.format("Key width of %s is %d, codec expects %d", file, width, codec.width()));
+            }
+            if (count > Integer.MAX_VALUE) {
+                throw new IOException(String.format("Too many keys in %s: %d", file, count));
+            }
+            long overlap = Math.max(maxLength, Long.BYTES);
+            // An empty key may start right at the end of the file, so the end always falls into a segment.
+            MappedByteBuffer[] segments = new MappedByteBuffer[(int) (size >>> SEGMENT_SHIFT) + 1];
+            for (int i = 0; i < segments.length; i++) {
+                long start = i * SEGMENT;
+                segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(size - start, SEGMENT + overlap));
+            }
+            long data = width == KeyCodec.VARIABLE ? HEADER + (count + 1) * Long.BYTES : HEADER;
+            return new MappedArraySet<>(new Storage<>(segments, codec, cmp, width, data), 0, (int) count, false);
+        }
+    }
+
+    // Writes the elements in iteration order, `set` should be ordered by the comparator the file will be opened with.
+    public static <T> void write(Path file, SortedSet<T> set, KeyCodec<T> codec) throws IOException {
+        int width = codec.width();
+        long count = set.size();
+        long data = width == KeyCodec.VARIABLE ? HEADER + (count + 1) * Long.BYTES : HEADER;
+        try (FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+             FileChannel tableChannel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.position(data);
+            tableChannel.position(HEADER);
+            // Closing the streams would close the channels before the header is written.
+            DataOutputStream keys = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel), BUF_SIZE));
+            DataOutputStream table = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(tableChannel), BUF_SIZE));
+            int maxLength = 0;
+            long offset = 0;
+            for (T element : set) {
+                byte[] key = codec.encode(element);
+                if (width == KeyCodec.VARIABLE) {
+                    table.writeLong(offset);
+                } else if (key.length != width) {
+                    throw new IOException(String.format("Key %s takes %d bytes instead of %d", element, key.length, width));
+                }
+                keys.write(key);
+                offset += key.length;
+                maxLength = Math.max(maxLength, key.length);
+            }
+            if (width == KeyCodec.VARIABLE) {
+                table.writeLong(offset);
+            }
+            keys.flush();
+            table.flush();
+            ByteBuffer header = ByteBuffer.allocate(HEADER)
+                    .putInt(MAGIC).putInt(width).putLong(count).putInt(maxLength).putInt(0)
+                    .flip();
+            while (header.hasRemaining()) {
+                channel.write(header, header.position());
+            }
+        }
+    }
+
+    @Override
+    T elementAt(int index) {
+        return storage.get(index);
+    }
+
+    @Override
+    int search(T element) {
+        Objects.requireNonNull(element);
+        int low = from;
+        int high = to - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int c = storage.compare(storage.get(mid), element);
+            if (c < 0) {
+                low = mid + 1;
+            } else if (c > 0) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -low - 1;
+    }
+
+    @Override
+    int compareAscending(T a, T b) {
+        return storage.compare(a, b);
+    }
+
+    @Override
+    MappedArraySet<T> view(int from, int to, boolean descending) {
+        return new MappedArraySet<>(storage, from, to, descending);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public boolean contains(Object o) {
+        return search((T) o) >= 0;
+    }
+
+    @Override
+    public Comparator<? super T> comparator() {
+        if (!descending) {
+            return storage.cmp();
+        }
+        return storage.cmp() == null ? Collections.reverseOrder() : Collections.reverseOrder(storage.cmp());
+    }
+}
@@ -0,0 +1,63 @@
+package info.kgeorgiy.ja.amirov.arrayset;
+
+import java.util.*;
+
+// Indexed set of integral numbers, with values handled as longs in the search and in the primitive accessors,
+// so the int and long sets share them and only add accessors of their own element type on top.
+abstract class PrimitiveIndexedSet<T extends Number> extends AbstractIndexedSet<T> {
+
+    PrimitiveIndexedSet(int from, int to, boolean descending) {
+        super(from, to, descending);
+    }
+
+    abstract long valueAt(int index);
+
+    // Arrays.binarySearch contract over storage indices in [from, to).
+    abstract int searchValue(long value);
+
+    @Override
+    int search(T element) {
+        return searchValue(element.longValue());
+    }
+
+    @Override
+    int compareAscending(T a, T b) {
+        return Long.compare(a.longValue(), b.longValue());
+    }
+
+    boolean containsValue(long value) {
+        return searchValue(value) >= 0;
+    }
+
+    long value(int position) {
+        Objects.checkIndex(position, size());
+        return valueAt(storageIndex(position));
+    }
+
+    long firstValue() {
+        if (isEmpty()) {
+            throw new NoSuchElementException();
+        }
+        return value(0);
+    }
+
+    long lastValue() {
+        if (isEmpty()) {
+            throw new NoSuchElementException();
+        }
+        return value(size() - 1);
+    }
+
+    // Position of the closest value before (`lower`) or after `value` in the iteration order, or -1 if there is none.
+    int neighbour(long value, boolean lower, boolean inclusive) {
+        return position(indexBound(searchValue(value), lower, inclusive));
+    }
+
+    long[] toValueArray() {
+        long[] result = new long[size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = valueAt(storageIndex(i));
+        }
+        return result;
+    }
+}
@@ -1,23 +1,57 @@
 package info.kgeorgiy.ja.amirov.arrayset;
 
 import java.util.*;
+import java.util.function.Consumer;
 
+// Immutable window [offset, offset + size) of a shared array, read forwards or backwards.
+// Reversing and taking sublists only create a new window, the elements are never copied.
 public class ReverseList<T> extends AbstractList<T> implements RandomAccess {
 
-    private final List<T> list;
-    boolean isReversed = false;
+    private static final Object[] EMPTY = new Object[0];
+
+    private final Object[] elements;
+    private final int offset;
+    private final int size;
+    final boolean isReversed;
 
     public ReverseList(Collection<T> collection) {
-        this.list = List.copyOf(collection);
+        this(nonNull(collection.toArray()));
+    }
+
+    private ReverseList(Object[] elements) {
+        this(elements, 0, elements.length, false);
+    }
+
+    // Takes ownership of the array, its first `size` elements must be sorted and distinct.
+    ReverseList(Object[] sorted, int size) {
+        this(sorted, 0, size, false);
     }
 
     public ReverseList(ReverseList<T> ReverseList, boolean isReversed) {
-        this.list = ReverseList.list;
-        this.isReversed = ReverseList.isReversed ^ isReversed;
+        this(ReverseList.elements, ReverseList.offset, ReverseList.size, ReverseList.isReversed ^ isReversed);
     }
 
     public ReverseList() {
-        this.list = Collections.emptyList();
+        this(EMPTY, 0, 0, false);
+    }
+
+    private ReverseList(Object[] elements, int offset, int size, boolean isReversed) {
+        this.elements = elements;
+        this.offset = offset;
+        this.size = size;
+        this.isReversed = isReversed;
+    }
+
+    private static Object[] nonNull(Object[] elements) {
+        for (Object element : elements) {
+            Objects.requireNonNull(element);
+        }
+        return elements;
+    }
+
+    // Start of the window in the shared array, the same for all directions.
+    int offset() {
+        return offset;
     }
 
     private int reversedIndex(int index) {
@@ -26,16 +60,35 @@ public class ReverseList<T> extends AbstractList<T> implements RandomAccess {
 
     @Override
     public ReverseList<T> subList(int from, int to) {
-        return new ReverseList<>(list.subList(from, to));
+        Objects.checkFromToIndex(from, to, size);
+        int start = isReversed ? size - to : from;
+        return new ReverseList<>(elements, offset + start, to - from, isReversed);
     }
 
     @Override
+    @SuppressWarnings("unchecked")
     public T get(int index) {
-        return list.get(isReversed ? reversedIndex(index) : index);
+        Objects.checkIndex(index, size);
+        return (T) elements[offset + (isReversed ? reversedIndex(index) : index)];
+    }
+
+    // Passes elements [from, to) to the action straight from the array, without per-element index checks.
+    @SuppressWarnings("unchecked")
+    void forEach(int from, int to, Consumer<? super T> action) {
+        Objects.checkFromToIndex(from, to, size);
+        if (isReversed) {
+            for (int i = offset + size - 1 - from, end = offset + size - 1 - to; i > end; i--) {
+                action.accept((T) elements[i]);
+            }
+        } else {
+            for (int i = offset + from, end = offset + to; i < end; i++) {
+                action.accept((T) elements[i]);
+            }
+        }
     }
 
     @Override
     public int size() {
-        return list.size();
+        return size;
     }
-}
\ No newline at end of file
+}
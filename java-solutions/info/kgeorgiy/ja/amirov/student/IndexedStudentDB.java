@@ -0,0 +1,166 @@
+package info.kgeorgiy.ja.amirov.student;
+
+import info.kgeorgiy.java.advanced.student.Group;
+import info.kgeorgiy.java.advanced.student.GroupName;
+import info.kgeorgiy.java.advanced.student.Student;
+
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+
+// StudentDB that answers queries about one roster from a snapshot built in the constructor.
+// Queries are answered from the snapshot only when they are passed the roster itself and its size and hash
+// still match the snapshot, otherwise the snapshot is rebuilt. Any other collection goes through the plain StudentDB.
+// Results are fresh lists, as in StudentDB, so the snapshot is copied out on every query instead of sorted again.
+public class IndexedStudentDB extends StudentDB {
+    private volatile Snapshot snapshot;
+
+    public IndexedStudentDB(final Collection<Student> roster) {
+        this.snapshot = new Snapshot(roster);
+    }
+
+    public IndexedStudentDB(final Collection<Student> roster, final int approximateDistinctThreshold) {
+        super(approximateDistinctThreshold);
+        this.snapshot = new Snapshot(roster);
+    }
+
+    public IndexedStudentDB(final Collection<Student> roster,
+                            final int approximateDistinctThreshold,
+                            final int parallelThreshold) {
+        super(approximateDistinctThreshold, parallelThreshold);
+        this.snapshot = new Snapshot(roster);
+    }
+
+    // The snapshot is built with the StudentDB queries themselves, so the orders and tie-breaks are the same.
+    // Name and group indexes are filled from the students sorted by name, so every list in them stays sorted.
+    private final class Snapshot {
+        private final Collection<Student> roster;
+        private final int size;
+        private final long hash;
+        private final List<Student> byId;
+        private final List<Student> byName;
+        private final List<Group> groupsByName;
+        private final List<Group> groupsById;
+        private final GroupName largestGroup;
+        private final GroupName largestGroupFirstName;
+        private final Map<GroupName, List<Student>> byGroup;
+        private final Map<String, List<Student>> byFirstName;
+        private final Map<String, List<Student>> byLastName;
+
+        private Snapshot(final Collection<Student> roster) {
+            this.roster = roster;
+            this.size = roster.size();
+            this.hash = hash(roster);
+            this.byId = IndexedStudentDB.super.sortStudentsById(roster);
+            this.byName = IndexedStudentDB.super.sortStudentsByName(roster);
+            this.groupsByName = IndexedStudentDB.super.getGroupsByName(roster);
+            this.groupsById = IndexedStudentDB.super.getGroupsById(roster);
+            this.largestGroup = IndexedStudentDB.super.getLargestGroup(roster);
+            this.largestGroupFirstName = IndexedStudentDB.super.getLargestGroupFirstName(roster);
+            this.byGroup = index(Student::getGroup);
+            this.byFirstName = index(Student::getFirstName);
+            this.byLastName = index(Student::getLastName);
+        }
+
+        private <K> Map<K, List<Student>> index(final Function<Student, K> key) {
+            return byName.stream().collect(Collectors.groupingBy(key));
+        }
+
+        private boolean matches(final Collection<Student> students) {
+            return students.size() == size && hash(students) == hash;
+        }
+    }
+
+    // Covers every field the queries read, and the order too: students with equal ids are sorted stably.
+    private static long hash(final Collection<Student> students) {
+        long hash = 1;
+        for (final Student student : students) {
+            hash = 31 * hash + student.getId();
+            hash = 31 * hash + student.getFirstName().hashCode();
+            hash = 31 * hash + student.getLastName().hashCode();
+            hash = 31 * hash + student.getGroup().ordinal();
+        }
+        return hash;
+    }
+
+    // Snapshot of `students` if they are the roster, rebuilt when the roster has changed since the last one.
+    private Snapshot indexed(final Collection<Student> students) {
+        final Snapshot current = snapshot;
+        // null while the snapshot itself is being built
+        if (current == null || students != current.roster) {
+            return null;
+        }
+        if (current.matches(students)) {
+            return current;
+        }
+        final Snapshot rebuilt = new Snapshot(students);
+        snapshot = rebuilt;
+        return rebuilt;
+    }
+
+    private static List<Group> copy(final List<Group> groups) {
+        return groups.stream()
+                .map(group -> new Group(group.getName(), new ArrayList<>(group.getStudents())))
+                .collect(Collectors.toList());
+    }
+
+    private static List<Student> find(final Map<?, List<Student>> index, final Object key) {
+        return new ArrayList<>(index.getOrDefault(key, List.of()));
+    }
+
+    @Override
+    public List<Group> getGroupsByName(final Collection<Student> students) {
+        final Snapshot indexed = indexed(students);
+        return indexed != null ? copy(indexed.groupsByName) : super.getGroupsByName(students);
+    }
+
+    @Override
+    public List<Group> getGroupsById(final Collection<Student> students) {
+        final Snapshot indexed = indexed(students);
+        return indexed != null ? copy(indexed.groupsById) : super.getGroupsById(students);
+    }
+
+    @Override
+    public GroupName getLargestGroup(final Collection<Student> students) {
+        final Snapshot indexed = indexed(students);
+        return indexed != null ? indexed.largestGroup : super.getLargestGroup(students);
+    }
+
+    @Override
+    public GroupName getLargestGroupFirstName(final Collection<Student> students) {
+        final Snapshot indexed = indexed(students);
+        return indexed != null ? indexed.largestGroupFirstName : super.getLargestGroupFirstName(students);
+    }
+
+    @Override
+    public List<Student> sortStudentsById(final Collection<Student> students) {
+        final Snapshot indexed = indexed(students);
+        return indexed != null ? new ArrayList<>(indexed.byId) : super.sortStudentsById(students);
+    }
+
+    @Override
+    public List<Student> sortStudentsByName(final Collection<Student> students) {
+        final Snapshot indexed = indexed(students);
+        return indexed != null ? new ArrayList<>(indexed.byName) : super.sortStudentsByName(students);
+    }
+
+    @Override
+    public List<Student> findStudentsByFirstName(final Collection<Student> students, final String name) {
+        final Snapshot indexed = indexed(students);
+        return indexed != null ? find(indexed.byFirstName, name) : super.findStudentsByFirstName(students, name);
+    }
+
+    @Override
+    public List<Student> findStudentsByLastName(final Collection<Student> students, final String name) {
+        final Snapshot indexed = indexed(students);
+        return indexed != null ? find(indexed.byLastName, name) : super.findStudentsByLastName(students, name);
+    }
+
+    // findStudentNamesByGroup goes through this method, so it only reads the students of the group too.
+    @Override
+    public List<Student> findStudentsByGroup(final Collection<Student> students, final GroupName group) {
+        final Snapshot indexed = indexed(students);
+        return indexed != null ? find(indexed.byGroup, group) : super.findStudentsByGroup(students, group);
+    }
+}
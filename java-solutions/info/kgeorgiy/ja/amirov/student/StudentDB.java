@@ -10,6 +10,7 @@ import java.util.function.BinaryOperator;
 import java.util.function.Function;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 
 public class StudentDB implements GroupQuery{
@@ -17,6 +18,25 @@ public class StudentDB implements GroupQuery{
             .comparing(Student::getLastName)
             .thenComparing(Student::getFirstName)
             .thenComparing(Student::getId, Comparator.reverseOrder());
+    private static final GroupName[] GROUPS = GroupName.values();
+
+    // Rosters of at least this size count distinct first names with HyperLogLog instead of exactly.
+    private final int approximateDistinctThreshold;
+    // Collections of at least this size are sorted, filtered, grouped and mapped with parallel streams.
+    private final int parallelThreshold;
+
+    public StudentDB() {
+        this(Integer.MAX_VALUE);
+    }
+
+    public StudentDB(final int approximateDistinctThreshold) {
+        this(approximateDistinctThreshold, Integer.MAX_VALUE);
+    }
+
+    public StudentDB(final int approximateDistinctThreshold, final int parallelThreshold) {
+        this.approximateDistinctThreshold = approximateDistinctThreshold;
+        this.parallelThreshold = parallelThreshold;
+    }
 
     @Override
     public List<Group> getGroupsByName(final Collection<Student> students) {
@@ -30,12 +50,19 @@ public class StudentDB implements GroupQuery{
 
     @Override
     public GroupName getLargestGroup(final Collection<Student> students) {
-        return getBiggestGroupBy(students, List::size, Comparator.naturalOrder());
+        final int[] sizes = new int[GROUPS.length];
+        for (final Student student : students) {
+            sizes[student.getGroup().ordinal()]++;
+        }
+        return getBiggestGroupBy(sizes, Comparator.naturalOrder());
     }
 
     @Override
     public GroupName getLargestGroupFirstName(final Collection<Student> students) {
-        return getBiggestGroupBy(students, s -> getDistinctFirstNames(s).size(), Comparator.reverseOrder());
+        final int[] distinct = students.size() < approximateDistinctThreshold
+                ? countDistinctFirstNames(students)
+                : estimateDistinctFirstNames(students);
+        return getBiggestGroupBy(distinct, Comparator.reverseOrder());
     }
 
     @Override
@@ -109,10 +136,15 @@ public class StudentDB implements GroupQuery{
                 ));
     }
 
+    // Parallel streams keep the encounter order: groupingBy, unlike groupingByConcurrent, merges the parts in order,
+    // and sorted is stable, so students equal by the comparator come out as in the sequential run.
+    private Stream<Student> stream(final Collection<Student> students) {
+        return students.size() < parallelThreshold ? students.stream() : students.parallelStream();
+    }
+
     private List<Group> getGroupsSortedBy(final Collection<Student> students,
                                           final Function<List<Student>, List<Student>> mapper) {
-        return students
-                .stream()
+        return stream(students)
                 .collect(Collectors.groupingBy(Student::getGroup, Collectors.collectingAndThen(Collectors.toList(), mapper)))
                 .entrySet()
                 .stream()
@@ -122,26 +154,60 @@ public class StudentDB implements GroupQuery{
     }
 
 
-    private GroupName getBiggestGroupBy(
-            final Collection<Student> students,
-            final Function<List<Student>, Integer> mapper,
-            final Comparator<GroupName> keyComparator) {
-        return students
-                .stream()
-                .collect(Collectors.groupingBy(Student::getGroup)) // :NOTE: same
-                .entrySet()
-                .stream()
-                .max(Comparator.comparing((Map.Entry<GroupName, List<Student>> entry) -> mapper.apply(entry.getValue()))
-                        .thenComparing(Map.Entry::getKey, keyComparator)) // :NOTE: reuse comp
-                .map(Map.Entry::getKey)
-                .orElse(null);
+    // Every first name remembers the groups it was seen in, so each group is counted in one pass.
+    private static int[] countDistinctFirstNames(final Collection<Student> students) {
+        final int[] distinct = new int[GROUPS.length];
+        final Map<String, BitSet> seen = new HashMap<>();
+        for (final Student student : students) {
+            final int group = student.getGroup().ordinal();
+            final BitSet groups = seen.computeIfAbsent(student.getFirstName(), name -> new BitSet(GROUPS.length));
+            if (!groups.get(group)) {
+                groups.set(group);
+                distinct[group]++;
+            }
+        }
+        return distinct;
+    }
+
+    // Groups with close counts may be ordered differently than by the exact counts.
+    private static int[] estimateDistinctFirstNames(final Collection<Student> students) {
+        final HyperLogLog[] sketches = new HyperLogLog[GROUPS.length];
+        for (final Student student : students) {
+            final int group = student.getGroup().ordinal();
+            if (sketches[group] == null) {
+                sketches[group] = new HyperLogLog();
+            }
+            sketches[group].add(student.getFirstName());
+        }
+        final int[] distinct = new int[GROUPS.length];
+        for (int i = 0; i < GROUPS.length; i++) {
+            if (sketches[i] != null) {
+                distinct[i] = (int) Math.max(1, Math.round(sketches[i].estimate()));
+            }
+        }
+        return distinct;
+    }
+
+    // Groups without students have zero values and are skipped, ties go to the greater group by `keyComparator`.
+    private static GroupName getBiggestGroupBy(final int[] values, final Comparator<GroupName> keyComparator) {
+        GroupName biggest = null;
+        for (int i = 0; i < GROUPS.length; i++) {
+            if (values[i] == 0) {
+                continue;
+            }
+            if (biggest == null
+                    || values[i] > values[biggest.ordinal()]
+                    || values[i] == values[biggest.ordinal()] && keyComparator.compare(GROUPS[i], biggest) > 0) {
+                biggest = GROUPS[i];
+            }
+        }
+        return biggest;
     }
 
 
     private List<Student> findBy(final Collection<Student> students,
                                  final Predicate<Student> predicate) {
-        return students
-                .stream()
+        return stream(students)
                 .filter(predicate)
                 .sorted(STUDENT_COMPARATOR)
                 .collect(Collectors.toList());
@@ -149,15 +215,13 @@ public class StudentDB implements GroupQuery{
 
     private List<Student> sortBy(final Collection<Student> students,
                                  final Comparator<Student> comparator) {
-        return students
-                .stream()
+        return stream(students)
                 .sorted(comparator)
                 .collect(Collectors.toList());
     }
 
     private <E> List<E> transformToList(final Collection<Student> students, final Function<Student, E> mapper) {
-        return students
-                .stream()
+        return stream(students)
                 .map(mapper)
                 .collect(Collectors.toList());
     }
@@ -0,0 +1,164 @@
+package info.kgeorgiy.ja.amirov.walk;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.AsynchronousFileChannel;
+import java.nio.channels.CompletionHandler;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+
+// Keeps up to `queueDepth` files in flight, each read through an AsynchronousFileChannel.
+// Every file alternates two buffers: the next read is issued before the completed buffer is hashed,
+// so hashing of one chunk overlaps with the read of the following one.
+public class AsyncFileHasher implements AutoCloseable {
+    private static final int BUF_SIZE = 1 << 18;
+
+    private final FileHasher hasher;
+    private final Semaphore inFlight;
+    private final ExecutorService ioPool;
+    private final Queue<ByteBuffer> buffers = new ConcurrentLinkedQueue<>();
+
+    public AsyncFileHasher(final FileHasher hasher, final int queueDepth) {
+        this.hasher = hasher;
+        this.inFlight = new Semaphore(queueDepth);
+        this.ioPool = Executors.newFixedThreadPool(queueDepth, runnable -> {
+            Thread thread = new Thread(runnable, "walk-async-io");
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (int i = 0; i < 2 * queueDepth; i++) {
+            buffers.add(ByteBuffer.allocateDirect(BUF_SIZE));
+        }
+    }
+
+    public CompletableFuture<byte[]> hash(Path filePath, BasicFileAttributes bfa) throws IOException {
+        byte[] cached = hasher.cached(filePath, bfa);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached);
+        }
+        try {
+            inFlight.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for a free read slot");
+        }
+        AsynchronousFileChannel channel;
+        try {
+            channel = AsynchronousFileChannel.open(filePath, Set.of(StandardOpenOption.READ), ioPool);
+        } catch (IOException | UnsupportedOperationException e) {
+            inFlight.release();
+            return CompletableFuture.completedFuture(hasher.failure());
+        }
+        FileRead read = new FileRead(filePath, bfa, channel);
+        read.start();
+        return read.result;
+    }
+
+    private class FileRead implements CompletionHandler<Integer, ByteBuffer> {
+        private final Path filePath;
+        private final BasicFileAttributes bfa;
+        private final AsynchronousFileChannel channel;
+        private final FileHasher.TimedHashFunction function = hasher.start();
+        private final ByteBuffer first = buffer();
+        private final ByteBuffer second = buffer();
+        private final CompletableFuture<byte[]> result = new CompletableFuture<>();
+        private long position;
+
+        FileRead(final Path filePath, final BasicFileAttributes bfa, final AsynchronousFileChannel channel) {
+            this.filePath = filePath;
+            this.bfa = bfa;
+            this.channel = channel;
+        }
+
+        void start() {
+            read(first);
+        }
+
+        private void read(ByteBuffer buffer) {
+            buffer.clear();
+            try {
+                channel.read(buffer, position, buffer, this);
+            } catch (RuntimeException e) {
+                failed(e, buffer);
+            }
+        }
+
+        // Handlers run on ioPool threads and never inside channel.read, so holding the lock
+        // while the next read is issued keeps the chunks in file order.
+        // Anything thrown in a handler would be lost on the pool thread, so it completes the result instead.
+        @Override
+        public synchronized void completed(Integer count, ByteBuffer buffer) {
+            try {
+                if (count < 0) {
+                    done(hasher.finish(filePath, bfa, function));
+                    return;
+                }
+                position += count;
+                read(buffer == first ? second : first);
+                if (result.isDone()) {
+                    return;
+                }
+                buffer.flip();
+                function.update(buffer);
+            } catch (Throwable e) {
+                abort(e);
+            }
+        }
+
+        @Override
+        public synchronized void failed(Throwable exc, ByteBuffer buffer) {
+            try {
+                if (!result.isDone()) {
+                    done(hasher.failure());
+                }
+            } catch (Throwable e) {
+                abort(e);
+            }
+        }
+
+        // A read may still be writing into one of the buffers, so they are not returned to the pool.
+        private void abort(Throwable e) {
+            if (result.isDone()) {
+                return;
+            }
+            try {
+                channel.close();
+            } catch (IOException ignore) {
+            }
+            inFlight.release();
+            hasher.metrics().failure();
+            result.completeExceptionally(e);
+        }
+
+        private void done(byte[] hash) {
+            try {
+                channel.close();
+            } catch (IOException ignore) {
+            }
+            buffers.add(first);
+            buffers.add(second);
+            inFlight.release();
+            result.complete(hash);
+        }
+    }
+
+    // Buffers of aborted reads are dropped, so the pool may have to allocate new ones.
+    private ByteBuffer buffer() {
+        ByteBuffer buffer = buffers.poll();
+        return buffer != null ? buffer : ByteBuffer.allocateDirect(BUF_SIZE);
+    }
+
+    @Override
+    public void close() {
+        ioPool.shutdownNow();
+    }
+}
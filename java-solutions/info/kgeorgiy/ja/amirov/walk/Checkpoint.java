@@ -0,0 +1,50 @@
+package info.kgeorgiy.ja.amirov.walk;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Properties;
+
+// Progress of an interrupted run: all input lines before byte `input` are hashed,
+// and their results are the first `output` bytes of the output file.
+public record Checkpoint(long input, long output, String shard) {
+    private static final String INPUT = "input";
+    private static final String OUTPUT = "output";
+    private static final String SHARD = "shard";
+
+    public static Checkpoint load(final Path file) throws WalkException {
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(file)) {
+            properties.load(reader);
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            throw new WalkException(String.format("Can not read checkpoint %s: %s", file, e.getMessage()));
+        }
+        try {
+            return new Checkpoint(
+                    Long.parseLong(properties.getProperty(INPUT)),
+                    Long.parseLong(properties.getProperty(OUTPUT)),
+                    properties.getProperty(SHARD, ""));
+        } catch (NumberFormatException e) {
+            throw new WalkException(String.format("Malformed checkpoint %s", file));
+        }
+    }
+
+    // Replaces the checkpoint atomically, so a crash leaves either the old or the new one.
+    public void save(final Path file) throws IOException {
+        Properties properties = new Properties();
+        properties.setProperty(INPUT, Long.toString(input));
+        properties.setProperty(OUTPUT, Long.toString(output));
+        properties.setProperty(SHARD, shard);
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (Writer writer = Files.newBufferedWriter(temp)) {
+            properties.store(writer, null);
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
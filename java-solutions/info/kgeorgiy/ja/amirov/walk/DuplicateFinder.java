@@ -0,0 +1,115 @@
+package info.kgeorgiy.ja.amirov.walk;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+// Collects visited files and writes groups of identical ones as adjacent "<sha256> <path>" lines,
+// with an empty line between groups.
+// Only files with a colliding size are read, first with a fast hash,
+// and only fast hash collisions are confirmed with SHA-256.
+public class DuplicateFinder extends HashFileVisitor {
+    private final FileHasher fastHasher;
+    private final ExecutorService executor;
+    private final Set<Path> seen = new HashSet<>();
+    private final Map<Long, List<FileEntry>> bySize = new LinkedHashMap<>();
+
+    private record FileEntry(Path path, BasicFileAttributes bfa) {
+    }
+
+    private record Group(byte[] hash, List<FileEntry> files) {
+    }
+
+    DuplicateFinder(final HashWriter writer, final WalkMetrics metrics, final ExecutorService executor) {
+        super(writer, FileHasher.confirming(HashAlgorithm.SHA256, metrics));
+        this.fastHasher = new FileHasher(HashAlgorithm.XXHASH64, null, metrics);
+        this.executor = executor;
+    }
+
+    @Override
+    public FileVisitResult visitFile(Path filePath, BasicFileAttributes bfa) {
+        if (bfa.isRegularFile() && seen.add(filePath.toAbsolutePath().normalize())) {
+            bySize.computeIfAbsent(bfa.size(), size -> new ArrayList<>()).add(new FileEntry(filePath, bfa));
+        }
+        return FileVisitResult.CONTINUE;
+    }
+
+    @Override
+    public FileVisitResult visitFileFailed(Path filePath, IOException ioe) {
+        hasher.metrics().failure();
+        return FileVisitResult.CONTINUE;
+    }
+
+    @Override
+    void writeFailed(String path) {
+        hasher.metrics().failure();
+    }
+
+    @Override
+    void finish() throws IOException {
+        boolean first = true;
+        for (List<FileEntry> sameSize : bySize.values()) {
+            if (sameSize.size() < 2) {
+                continue;
+            }
+            for (Group sameFast : split(sameSize, fastHasher)) {
+                for (Group duplicates : split(sameFast.files(), hasher)) {
+                    if (!first) {
+                        writeBlankLine();
+                    }
+                    first = false;
+                    for (FileEntry file : duplicates.files()) {
+                        write(duplicates.hash(), file.path().toString());
+                    }
+                }
+            }
+        }
+    }
+
+    // Files that cannot be read have null hashes and are left out.
+    private List<Group> split(List<FileEntry> files, FileHasher fileHasher) throws IOException {
+        List<byte[]> hashes = hashAll(files, fileHasher);
+        Map<ByteBuffer, Group> groups = new LinkedHashMap<>();
+        for (int i = 0; i < files.size(); i++) {
+            byte[] hash = hashes.get(i);
+            if (hash != null) {
+                groups.computeIfAbsent(ByteBuffer.wrap(hash), key -> new Group(hash, new ArrayList<>())).files().add(files.get(i));
+            }
+        }
+        return groups.values().stream().filter(group -> group.files().size() > 1).toList();
+    }
+
+    private List<byte[]> hashAll(List<FileEntry> files, FileHasher fileHasher) throws IOException {
+        if (executor == null) {
+            return files.stream().map(file -> fileHasher.tryHash(file.path(), file.bfa())).toList();
+        }
+        List<Future<byte[]>> futures = files.stream()
+                .map(file -> executor.submit(() -> fileHasher.tryHash(file.path(), file.bfa())))
+                .toList();
+        List<byte[]> result = new ArrayList<>();
+        for (Future<byte[]> future : futures) {
+            try {
+                result.add(future.get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for hash");
+            } catch (ExecutionException e) {
+                fileHasher.metrics().failure();
+                result.add(null);
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,195 @@
+package info.kgeorgiy.ja.amirov.walk;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+
+public class FileHasher {
+    private static final int BUF_SIZE = 4096;
+    // Large files are read through a channel into a per-thread direct buffer,
+    // so that they need few syscalls and no heap copies.
+    private static final long CHANNEL_THRESHOLD = 1 << 20;
+    private static final int CHANNEL_BUF_SIZE = 1 << 20;
+    private static final ThreadLocal<ByteBuffer> STREAM_BUFFER = ThreadLocal.withInitial(() -> ByteBuffer.allocate(BUF_SIZE));
+    private static final ThreadLocal<ByteBuffer> CHANNEL_BUFFER =
+            ThreadLocal.withInitial(() -> ByteBuffer.allocateDirect(CHANNEL_BUF_SIZE));
+
+    private final HashAlgorithm algorithm;
+    private final HashCache cache;
+    private final WalkMetrics metrics;
+    private final TreeHasher tree;
+    private final boolean confirmation;
+
+    public FileHasher(final HashAlgorithm algorithm) {
+        this(algorithm, null, new WalkMetrics());
+    }
+
+    public FileHasher(final HashAlgorithm algorithm, final HashCache cache, final WalkMetrics metrics) {
+        this(algorithm, cache, metrics, null);
+    }
+
+    public FileHasher(final HashAlgorithm algorithm, final HashCache cache, final WalkMetrics metrics, final TreeHasher tree) {
+        this(algorithm, cache, metrics, tree, false);
+    }
+
+    private FileHasher(final HashAlgorithm algorithm, final HashCache cache, final WalkMetrics metrics,
+                       final TreeHasher tree, final boolean confirmation) {
+        this.algorithm = algorithm;
+        this.cache = cache;
+        this.metrics = metrics;
+        this.tree = tree;
+        this.confirmation = confirmation;
+    }
+
+    // Hashes files that were already hashed once, they are counted as confirmed instead of hashed.
+    static FileHasher confirming(final HashAlgorithm algorithm, final WalkMetrics metrics) {
+        return new FileHasher(algorithm, null, metrics, null, true);
+    }
+
+    // Counts the bytes passed to the delegate and the time spent hashing them.
+    // Tree hashes add up their leaves, which run in parallel, so their work time is the sum of the leaves' times.
+    static class TimedHashFunction implements HashFunction {
+        private final HashFunction delegate;
+        private final long start = System.nanoTime();
+        private long bytes;
+        private long nanos;
+        private long work;
+        private boolean merged;
+
+        TimedHashFunction(final HashFunction delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void update(ByteBuffer buffer) {
+            long start = System.nanoTime();
+            bytes += buffer.remaining();
+            delegate.update(buffer);
+            nanos += System.nanoTime() - start;
+        }
+
+        // Hashes data that was not read from the file, such as the digests of tree leaves.
+        void updateDerived(ByteBuffer buffer) {
+            long start = System.nanoTime();
+            delegate.update(buffer);
+            long elapsed = System.nanoTime() - start;
+            nanos += elapsed;
+            work += elapsed;
+        }
+
+        @Override
+        public byte[] digest() {
+            return delegate.digest();
+        }
+
+        void stop() {
+            work += System.nanoTime() - start;
+        }
+
+        void add(TimedHashFunction other) {
+            bytes += other.bytes;
+            nanos += other.nanos;
+            work += other.work;
+            merged = true;
+        }
+    }
+
+    public HashAlgorithm algorithm() {
+        return algorithm;
+    }
+
+    public WalkMetrics metrics() {
+        return metrics;
+    }
+
+    public byte[] hash(Path filePath, BasicFileAttributes bfa) {
+        byte[] hash = tryHash(filePath, bfa);
+        return hash != null ? hash : failed();
+    }
+
+    // Digest of the file, or null if it cannot be read, so that a failure is never taken for a real digest.
+    byte[] tryHash(Path filePath, BasicFileAttributes bfa) {
+        byte[] cached = cached(filePath, bfa);
+        if (cached != null) {
+            return cached;
+        }
+        TimedHashFunction function = start();
+        try {
+            if (tree != null) {
+                tree.hash(filePath, function);
+            } else if (bfa.size() >= CHANNEL_THRESHOLD) {
+                hashChannel(filePath, function);
+            } else {
+                hashStream(filePath, function);
+            }
+            return finish(filePath, bfa, function);
+        } catch (IOException e) {
+            metrics.failure();
+            return null;
+        }
+    }
+
+    public byte[] failed() {
+        return new byte[algorithm.digestLength()];
+    }
+
+    byte[] cached(Path filePath, BasicFileAttributes bfa) {
+        byte[] cached = cache == null ? null : cache.lookup(filePath, bfa);
+        if (cached != null) {
+            metrics.cacheHit();
+        }
+        return cached;
+    }
+
+    TimedHashFunction start() {
+        return new TimedHashFunction(algorithm.create());
+    }
+
+    byte[] finish(Path filePath, BasicFileAttributes bfa, TimedHashFunction function) {
+        byte[] hash = function.digest();
+        long elapsed = System.nanoTime() - function.start;
+        long work = function.merged ? function.work : elapsed;
+        if (confirmation) {
+            metrics.confirmed(function.bytes, elapsed, function.nanos, work);
+        } else {
+            metrics.hashed(function.bytes, elapsed, function.nanos, work);
+        }
+        if (cache != null) {
+            cache.store(filePath, bfa, hash);
+        }
+        return hash;
+    }
+
+    byte[] failure() {
+        metrics.failure();
+        return failed();
+    }
+
+    private static void hashStream(Path filePath, HashFunction function) throws IOException {
+        try (InputStream reader = Files.newInputStream(filePath)) {
+            int cnt;
+            ByteBuffer buf = STREAM_BUFFER.get();
+            while ((cnt = reader.read(buf.array())) != -1) {
+                buf.clear().limit(cnt);
+                function.update(buf);
+            }
+        }
+    }
+
+    private static void hashChannel(Path filePath, HashFunction function) throws IOException {
+        try (FileChannel channel = FileChannel.open(filePath, StandardOpenOption.READ)) {
+            ByteBuffer buf = CHANNEL_BUFFER.get();
+            buf.clear();
+            while (channel.read(buf) != -1) {
+                buf.flip();
+                function.update(buf);
+                buf.clear();
+            }
+        }
+    }
+}
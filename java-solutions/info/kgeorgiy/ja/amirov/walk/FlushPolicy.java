@@ -0,0 +1,32 @@
+package info.kgeorgiy.ja.amirov.walk;
+
+public enum FlushPolicy {
+    // Write out the buffer only when it is full and on close.
+    FULL("full"),
+    // Write out the buffer after every line.
+    LINE("line"),
+    // Write out the buffer after a line if the previous write out was more than a second ago.
+    PERIODIC("periodic");
+
+    static final long PERIOD_NANOS = 1_000_000_000L;
+
+    private final String name;
+
+    FlushPolicy(final String name) {
+        this.name = name;
+    }
+
+    public static FlushPolicy byName(final String name) throws WalkException {
+        for (FlushPolicy policy : values()) {
+            if (policy.name.equals(name)) {
+                return policy;
+            }
+        }
+        throw new WalkException(String.format("Unknown flush policy %s, expected one of: full, line, periodic", name));
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
@@ -0,0 +1,26 @@
+package info.kgeorgiy.ja.amirov.walk;
+
+import java.nio.ByteBuffer;
+
+public class Fnv1a64Hash implements HashFunction {
+    private static final long OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long PRIME = 0x100000001b3L;
+
+    private long hash = OFFSET_BASIS;
+
+    @Override
+    public void update(ByteBuffer buffer) {
+        long h = hash;
+        for (int i = buffer.position(); i < buffer.limit(); i++) {
+            h ^= buffer.get(i) & 0xff;
+            h *= PRIME;
+        }
+        buffer.position(buffer.limit());
+        hash = h;
+    }
+
+    @Override
+    public byte[] digest() {
+        return ByteBuffer.allocate(Long.BYTES).putLong(hash).array();
+    }
+}
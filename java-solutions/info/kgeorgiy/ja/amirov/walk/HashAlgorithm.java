@@ -0,0 +1,45 @@
+package info.kgeorgiy.ja.amirov.walk;
+
+import java.util.Arrays;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+public enum HashAlgorithm {
+    JENKINS("jenkins", 4, JenkinsHash::new),
+    FNV1A64("fnv1a64", 8, Fnv1a64Hash::new),
+    XXHASH64("xxhash64", 8, XxHash64::new),
+    SHA256("sha256", 32, () -> new MessageDigestHash("SHA-256"));
+
+    private final String name;
+    private final int digestLength;
+    private final Supplier<HashFunction> factory;
+
+    HashAlgorithm(final String name, final int digestLength, final Supplier<HashFunction> factory) {
+        this.name = name;
+        this.digestLength = digestLength;
+        this.factory = factory;
+    }
+
+    public static HashAlgorithm byName(final String name) throws WalkException {
+        for (HashAlgorithm algorithm : values()) {
+            if (algorithm.name.equals(name)) {
+                return algorithm;
+            }
+        }
+        throw new WalkException(String.format("Unknown hash algorithm %s, expected one of: %s", name,
+                Arrays.stream(values()).map(HashAlgorithm::toString).collect(Collectors.joining(", "))));
+    }
+
+    public HashFunction create() {
+        return factory.get();
+    }
+
+    public int digestLength() {
+        return digestLength;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
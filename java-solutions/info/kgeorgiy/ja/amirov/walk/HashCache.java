@@ -0,0 +1,155 @@
+package info.kgeorgiy.ja.amirov.walk;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+// Hashes of the previous run, keyed by absolute path and validated by size and modification time.
+// Only entries that were looked up or stored during the current run are saved back.
+public class HashCache {
+    private static final int MAGIC = 0x57484331;
+    private static final int BUF_SIZE = 1 << 16;
+
+    private record Entry(long size, long modified, byte[] hash) {
+    }
+
+    private final Path file;
+    private final String algorithm;
+    private final Map<String, Entry> previous;
+    private final Map<String, Entry> current = new ConcurrentHashMap<>();
+
+    private HashCache(final Path file, final String algorithm, final Map<String, Entry> previous) {
+        this.file = file;
+        this.algorithm = algorithm;
+        this.previous = previous;
+    }
+
+    public static HashCache load(final Path file, final HashAlgorithm algorithm) {
+        return load(file, algorithm.toString(), algorithm.digestLength());
+    }
+
+    // A cache that can not be read is ignored, the walk then hashes everything again.
+    public static HashCache load(final Path file, final String algorithm, final int digestLength) {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), BUF_SIZE))) {
+            if (in.readInt() != MAGIC || !in.readUTF().equals(algorithm)) {
+                return new HashCache(file, algorithm, Map.of());
+            }
+            long fileSize = Files.size(file);
+            int count = in.readInt();
+            if (count < 0 || (long) count * (Integer.BYTES + 2 * Long.BYTES + digestLength) > fileSize) {
+                throw new IOException("Corrupted entry count " + count);
+            }
+            Map<String, Entry> entries = new HashMap<>(count * 2);
+            for (int i = 0; i < count; i++) {
+                int length = in.readInt();
+                if (length < 0 || length > fileSize) {
+                    throw new IOException("Corrupted path length " + length);
+                }
+                byte[] path = new byte[length];
+                in.readFully(path);
+                long size = in.readLong();
+                long modified = in.readLong();
+                byte[] hash = new byte[digestLength];
+                in.readFully(hash);
+                entries.put(new String(path, StandardCharsets.UTF_8), new Entry(size, modified, hash));
+            }
+            return new HashCache(file, algorithm, entries);
+        } catch (NoSuchFileException e) {
+            return new HashCache(file, algorithm, Map.of());
+        } catch (IOException | RuntimeException e) {
+            System.err.format("Ignoring unreadable hash cache %s: %s%n", file, e.getMessage());
+            return new HashCache(file, algorithm, Map.of());
+        }
+    }
+
+    // Keeps the entries of the interrupted run that the resumed one does not look up again:
+    // those of unchanged files under the roots walked before the checkpoint. The rest is dropped as usual.
+    public void resume(final Collection<Path> roots) {
+        Set<Path> walked = roots.stream().map(root -> root.toAbsolutePath().normalize()).collect(Collectors.toSet());
+        previous.forEach((key, entry) -> {
+            Path path = Path.of(key);
+            if (under(path, walked) && unchanged(path, entry)) {
+                current.putIfAbsent(key, entry);
+            }
+        });
+    }
+
+    private static boolean under(Path path, Set<Path> roots) {
+        for (Path parent = path; parent != null; parent = parent.getParent()) {
+            if (roots.contains(parent)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean unchanged(Path path, Entry entry) {
+        try {
+            BasicFileAttributes bfa = Files.readAttributes(path, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+            return bfa.isRegularFile() && bfa.size() == entry.size() && modified(bfa) == entry.modified();
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    public byte[] lookup(Path filePath, BasicFileAttributes bfa) {
+        if (!bfa.isRegularFile()) {
+            return null;
+        }
+        String key = key(filePath);
+        Entry entry = previous.get(key);
+        if (entry == null || entry.size() != bfa.size() || entry.modified() != modified(bfa)) {
+            return null;
+        }
+        current.put(key, entry);
+        return entry.hash();
+    }
+
+    public void store(Path filePath, BasicFileAttributes bfa, byte[] hash) {
+        if (bfa.isRegularFile()) {
+            current.put(key(filePath), new Entry(bfa.size(), modified(bfa), hash));
+        }
+    }
+
+    public void save() throws IOException {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp), BUF_SIZE))) {
+            out.writeInt(MAGIC);
+            out.writeUTF(algorithm);
+            out.writeInt(current.size());
+            for (Map.Entry<String, Entry> entry : current.entrySet()) {
+                byte[] path = entry.getKey().getBytes(StandardCharsets.UTF_8);
+                out.writeInt(path.length);
+                out.write(path);
+                out.writeLong(entry.getValue().size());
+                out.writeLong(entry.getValue().modified());
+                out.write(entry.getValue().hash());
+            }
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static String key(Path filePath) {
+        return filePath.toAbsolutePath().normalize().toString();
+    }
+
+    private static long modified(BasicFileAttributes bfa) {
+        return bfa.lastModifiedTime().to(TimeUnit.NANOSECONDS);
+    }
+}
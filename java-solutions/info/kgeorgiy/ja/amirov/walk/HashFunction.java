@@ -0,0 +1,11 @@
+package info.kgeorgiy.ja.amirov.walk;
+
+import java.nio.ByteBuffer;
+
+// Streaming hash of a single file: consumes the remaining bytes of every buffer passed to update,
+// digest finishes the computation and returns the hash in big-endian order.
+public interface HashFunction {
+    void update(ByteBuffer buffer);
+
+    byte[] digest();
+}
@@ -0,0 +1,117 @@
+package info.kgeorgiy.ja.amirov.walk;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+
+// Writes "<hex hash> <path><line separator>" lines straight into a direct buffer in UTF-8,
+// producing the same bytes as formatting them and writing through Files.newBufferedWriter.
+public class HashWriter implements Closeable, Flushable {
+    private static final int BUF_SIZE = 1 << 18;
+    private static final byte[] HEX_DIGITS = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] LINE_SEPARATOR = System.lineSeparator().getBytes(StandardCharsets.UTF_8);
+
+    private final WritableByteChannel channel;
+    private final FlushPolicy policy;
+    private final byte[] tag;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUF_SIZE);
+    private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder();
+    private long lastFlush = System.nanoTime();
+
+    public HashWriter(final WritableByteChannel channel, final FlushPolicy policy) {
+        this(channel, policy, null);
+    }
+
+    // A non-null tag is written as "<tag>:" before every hash, to mark hashes of a different kind.
+    public HashWriter(final WritableByteChannel channel, final FlushPolicy policy, final String tag) {
+        this.channel = channel;
+        this.policy = policy;
+        this.tag = tag == null ? new byte[0] : (tag + ":").getBytes(StandardCharsets.UTF_8);
+    }
+
+    public void write(byte[] hash, String path) throws IOException {
+        reserve(tag.length + hash.length * 2 + 1);
+        buffer.put(tag);
+        for (byte b : hash) {
+            buffer.put(HEX_DIGITS[(b >> 4) & 0xf]);
+            buffer.put(HEX_DIGITS[b & 0xf]);
+        }
+        buffer.put((byte) ' ');
+        writePath(path);
+        reserve(LINE_SEPARATOR.length);
+        buffer.put(LINE_SEPARATOR);
+        if (policy == FlushPolicy.LINE
+                || policy == FlushPolicy.PERIODIC && System.nanoTime() - lastFlush > FlushPolicy.PERIOD_NANOS) {
+            flush();
+        }
+    }
+
+    // An empty line, used to separate groups of lines.
+    public void writeBlankLine() throws IOException {
+        reserve(LINE_SEPARATOR.length);
+        buffer.put(LINE_SEPARATOR);
+    }
+
+    private void writePath(String path) throws IOException {
+        for (int i = 0; i < path.length(); i++) {
+            char c = path.charAt(i);
+            if (c >= 0x80) {
+                encode(CharBuffer.wrap(path, i, path.length()));
+                return;
+            }
+            if (!buffer.hasRemaining()) {
+                drain();
+            }
+            buffer.put((byte) c);
+        }
+    }
+
+    private void encode(CharBuffer chars) throws IOException {
+        encoder.reset();
+        CoderResult result;
+        while ((result = encoder.encode(chars, buffer, true)).isOverflow()) {
+            drain();
+        }
+        if (result.isError()) {
+            result.throwException();
+        }
+        while (encoder.flush(buffer).isOverflow()) {
+            drain();
+        }
+    }
+
+    private void reserve(int bytes) throws IOException {
+        if (buffer.remaining() < bytes) {
+            drain();
+        }
+    }
+
+    private void drain() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    @Override
+    public void flush() throws IOException {
+        drain();
+        lastFlush = System.nanoTime();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package info.kgeorgiy.ja.amirov.walk;
+
+import java.nio.ByteBuffer;
+
+public class JenkinsHash implements HashFunction {
+    private int hash = 0;
+
+    @Override
+    public void update(ByteBuffer buffer) {
+        int h = hash;
+        for (int i = buffer.position(); i < buffer.limit(); i++) {
+            h += buffer.get(i) & 0xff;
+            h += h << 10;
+            h ^= h >>> 6;
+        }
+        buffer.position(buffer.limit());
+        hash = h;
+    }
+
+    @Override
+    public byte[] digest() {
+        int h = hash;
+        h += h << 3;
+        h ^= h >>> 11;
+        h += h << 15;
+        return ByteBuffer.allocate(Integer.BYTES).putInt(h).array();
+    }
+}
@@ -0,0 +1,24 @@
+package info.kgeorgiy.ja.amirov.walk;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+
+public interface LineSource extends Closeable {
+    // Returns the next line without its terminator, or null at the end of input.
+    String readLine() throws IOException;
+
+    static LineSource of(final BufferedReader reader) {
+        return new LineSource() {
+            @Override
+            public String readLine() throws IOException {
+                return reader.readLine();
+            }
+
+            @Override
+            public void close() throws IOException {
+                reader.close();
+            }
+        };
+    }
+}
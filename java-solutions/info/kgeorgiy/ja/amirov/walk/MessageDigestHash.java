@@ -0,0 +1,27 @@
+package info.kgeorgiy.ja.amirov.walk;
+
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+public class MessageDigestHash implements HashFunction {
+    private final MessageDigest digest;
+
+    public MessageDigestHash(final String algorithm) {
+        try {
+            this.digest = MessageDigest.getInstance(algorithm);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalArgumentException(String.format("Digest %s is not available", algorithm), e);
+        }
+    }
+
+    @Override
+    public void update(ByteBuffer buffer) {
+        digest.update(buffer);
+    }
+
+    @Override
+    public byte[] digest() {
+        return digest.digest();
+    }
+}
@@ -0,0 +1,185 @@
+package info.kgeorgiy.ja.amirov.walk;
+
+import java.io.IOException;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileVisitResult;
+import java.nio.file.FileVisitor;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+// Lists directories concurrently on a fork/join pool, while the visitor is called on the walking thread
+// in the same order and with the same callbacks as Files.walkFileTree without FOLLOW_LINKS.
+// Listings are only started by the walking thread, for the next few subdirectories of every directory
+// it is inside of, so the walk never runs more than that far ahead of the visitor.
+public class ParallelFileTreeWalker implements AutoCloseable {
+    private final ForkJoinPool pool;
+    private final int lookAhead;
+
+    private interface Node {
+    }
+
+    private record FileNode(Path path, BasicFileAttributes bfa) implements Node {
+    }
+
+    private record FailedNode(Path path, IOException exception) implements Node {
+    }
+
+    // Accessed by the walking thread only, except for `cancelled`, which stops a running listing early.
+    private final class DirectoryNode implements Node {
+        private final Path path;
+        private final BasicFileAttributes bfa;
+        private final int depth;
+        private final int maxDepth;
+        private ForkJoinTask<Listing> listing;
+        private volatile boolean cancelled;
+
+        private DirectoryNode(Path path, BasicFileAttributes bfa, int depth, int maxDepth) {
+            this.path = path;
+            this.bfa = bfa;
+            this.depth = depth;
+            this.maxDepth = maxDepth;
+        }
+
+        private ForkJoinTask<Listing> start() {
+            if (listing == null) {
+                listing = ForkJoinTask.adapt(() -> list(this));
+                pool.execute(listing);
+            }
+            return listing;
+        }
+
+        private void cancel() {
+            cancelled = true;
+            if (listing != null) {
+                listing.cancel(false);
+            }
+        }
+    }
+
+    private record Listing(IOException openFailure, List<Node> entries, IOException iterationFailure) {
+    }
+
+    public ParallelFileTreeWalker(final int threads) {
+        this.pool = new ForkJoinPool(threads, ForkJoinPool.defaultForkJoinWorkerThreadFactory, null, true);
+        this.lookAhead = 2 * threads;
+    }
+
+    public void walkFileTree(Path start, int maxDepth, FileVisitor<? super Path> visitor) throws IOException {
+        visit(node(start, 0, maxDepth), visitor);
+    }
+
+    private FileVisitResult visit(Node node, FileVisitor<? super Path> visitor) throws IOException {
+        if (node instanceof FileNode file) {
+            return visitor.visitFile(file.path(), file.bfa());
+        }
+        if (node instanceof FailedNode failed) {
+            return visitor.visitFileFailed(failed.path(), failed.exception());
+        }
+        DirectoryNode dir = (DirectoryNode) node;
+        Listing listing = dir.start().join();
+        if (listing.openFailure() != null) {
+            return visitor.visitFileFailed(dir.path, listing.openFailure());
+        }
+
+        FileVisitResult result = visitor.preVisitDirectory(dir.path, dir.bfa);
+        if (result != FileVisitResult.CONTINUE) {
+            return result == FileVisitResult.SKIP_SUBTREE ? FileVisitResult.CONTINUE : result;
+        }
+        List<Node> entries = listing.entries();
+        // Listings of the subdirectories in [i, started) are running or done, at most lookAhead of them.
+        // Whatever makes the loop stop early, the listings started ahead of it are cancelled.
+        int i = 0;
+        int started = 0;
+        int pending = 0;
+        try {
+            for (; i < entries.size(); i++) {
+                while (started < entries.size() && pending < lookAhead) {
+                    if (entries.get(started++) instanceof DirectoryNode subdirectory) {
+                        subdirectory.start();
+                        pending++;
+                    }
+                }
+                Node entry = entries.get(i);
+                if (entry instanceof DirectoryNode) {
+                    pending--;
+                }
+                result = visit(entry, visitor);
+                if (result == FileVisitResult.TERMINATE) {
+                    return result;
+                }
+                if (result == FileVisitResult.SKIP_SIBLINGS) {
+                    break;
+                }
+            }
+        } finally {
+            cancel(entries.subList(Math.min(i + 1, started), started));
+        }
+        result = visitor.postVisitDirectory(dir.path, listing.iterationFailure());
+        // As in Files.walkFileTree, skipping siblings is a no-op after postVisitDirectory.
+        return result == FileVisitResult.SKIP_SIBLINGS ? FileVisitResult.CONTINUE : result;
+    }
+
+    private Node node(Path path, int depth, int maxDepth) {
+        BasicFileAttributes bfa;
+        try {
+            bfa = Files.readAttributes(path, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+        } catch (IOException e) {
+            return new FailedNode(path, e);
+        }
+        if (depth >= maxDepth || !bfa.isDirectory()) {
+            return new FileNode(path, bfa);
+        }
+        return new DirectoryNode(path, bfa, depth, maxDepth);
+    }
+
+    // Only lists `dir`, the listings of its subdirectories are started once the visitor gets to them.
+    private Listing list(DirectoryNode dir) {
+        DirectoryStream<Path> stream;
+        try {
+            stream = Files.newDirectoryStream(dir.path);
+        } catch (IOException e) {
+            return new Listing(e, List.of(), null);
+        }
+        List<Node> entries = new ArrayList<>();
+        IOException failure = null;
+        try {
+            for (Path entry : stream) {
+                if (dir.cancelled) {
+                    break;
+                }
+                entries.add(node(entry, dir.depth + 1, dir.maxDepth));
+            }
+        } catch (DirectoryIteratorException e) {
+            failure = e.getCause();
+        }
+        try {
+            stream.close();
+        } catch (IOException e) {
+            if (failure == null) {
+                failure = e;
+            }
+        }
+        return new Listing(null, entries, failure);
+    }
+
+    // Subdirectory listings are never started by other listings, so there is nothing deeper to cancel.
+    private static void cancel(List<Node> entries) {
+        for (Node entry : entries) {
+            if (entry instanceof DirectoryNode dir) {
+                dir.cancel();
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        pool.shutdownNow();
+    }
+}
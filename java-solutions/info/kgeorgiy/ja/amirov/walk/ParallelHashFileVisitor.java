@@ -0,0 +1,83 @@
+package info.kgeorgiy.ja.amirov.walk;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+// Hashes files asynchronously, but writes results in the order they were visited.
+// At most `window` results are kept in memory, after that traversal waits for the oldest one.
+public class ParallelHashFileVisitor extends HashFileVisitor {
+    private final Submitter submitter;
+    private final int window;
+    private final Deque<Pending> pending = new ArrayDeque<>();
+
+    @FunctionalInterface
+    interface Submitter {
+        Future<byte[]> submit(Path filePath, BasicFileAttributes bfa) throws IOException;
+    }
+
+    private record Pending(Future<byte[]> hash, String path) {
+    }
+
+    ParallelHashFileVisitor(final HashWriter writer, final FileHasher hasher,
+                            final ExecutorService executor, final int window) {
+        this(writer, hasher, (filePath, bfa) -> executor.submit(() -> hasher.hash(filePath, bfa)), window);
+    }
+
+    ParallelHashFileVisitor(final HashWriter writer, final FileHasher hasher,
+                            final Submitter submitter, final int window) {
+        super(writer, hasher);
+        this.submitter = submitter;
+        this.window = window;
+    }
+
+    @Override
+    public FileVisitResult visitFile(Path filePath, BasicFileAttributes bfa) throws IOException {
+        enqueue(submitter.submit(filePath, bfa), filePath.toString());
+        return FileVisitResult.CONTINUE;
+    }
+
+    @Override
+    void writeFailed(String path) throws IOException {
+        hasher.metrics().failure();
+        enqueue(CompletableFuture.completedFuture(hasher.failed()), path);
+    }
+
+    @Override
+    void finish() throws IOException {
+        while (!pending.isEmpty()) {
+            writeNext();
+        }
+    }
+
+    private void enqueue(Future<byte[]> hash, String path) throws IOException {
+        pending.add(new Pending(hash, path));
+        while (pending.size() > window) {
+            writeNext();
+        }
+    }
+
+    private void writeNext() throws IOException {
+        Pending next = pending.remove();
+        write(await(next.hash()), next.path());
+    }
+
+    private byte[] await(Future<byte[]> hash) throws IOException {
+        try {
+            return hash.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for hash");
+        } catch (ExecutionException e) {
+            return hasher.failed();
+        }
+    }
+}
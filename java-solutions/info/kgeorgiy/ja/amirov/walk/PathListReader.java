@@ -0,0 +1,204 @@
+package info.kgeorgiy.ja.amirov.walk;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+// Splits a memory-mapped list of paths into lines on a background thread and hands them over in batches,
+// so hashing starts before the whole list is parsed. Lines end at "\n", "\r" or "\r\n" like in
+// BufferedReader.readLine, and are decoded straight from the mapped bytes as UTF-8.
+// A reader may be limited to the lines that start in the byte range [from, to).
+public class PathListReader implements LineSource {
+    private static final long REGION = 1 << 30;
+    private static final int BATCH = 1024;
+    private static final int QUEUED_BATCHES = 16;
+    private static final int SCAN_SIZE = 1 << 16;
+    private static final Batch END = new Batch(new String[0], new long[0], 0);
+
+    private record Batch(String[] lines, long[] ends, int size) {
+    }
+
+    private final FileChannel channel;
+    private final long from;
+    private final long to;
+    private final BlockingQueue<Batch> batches = new ArrayBlockingQueue<>(QUEUED_BATCHES);
+    private final Thread parser;
+    private volatile IOException failure;
+    private Batch batch = new Batch(new String[0], new long[0], 0);
+    private int next;
+    private long offset;
+
+    private final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder();
+    private byte[] scratch = new byte[256];
+
+    public PathListReader(final Path file) throws IOException {
+        this(file, 0, Long.MAX_VALUE);
+    }
+
+    public PathListReader(final Path file, final long from, final long to) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        this.from = from;
+        this.to = to;
+        this.offset = from;
+        this.parser = new Thread(this::parse, "walk-input");
+        parser.setDaemon(true);
+        parser.start();
+    }
+
+    public static long size(final Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return channel.size();
+        }
+    }
+
+    @Override
+    public String readLine() throws IOException {
+        if (next == batch.size()) {
+            if (batch == END) {
+                return null;
+            }
+            try {
+                batch = batches.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while reading input");
+            }
+            next = 0;
+            if (batch == END) {
+                if (failure != null) {
+                    throw failure;
+                }
+                return null;
+            }
+        }
+        offset = batch.ends()[next];
+        return batch.lines()[next++];
+    }
+
+    // Byte offset just after the last line returned by readLine, resuming from it skips all returned lines.
+    public long offset() {
+        return offset;
+    }
+
+    private void parse() {
+        String[] lines = new String[BATCH];
+        long[] ends = new long[BATCH];
+        int count = 0;
+        try {
+            long size = channel.size();
+            long lineStart = firstLineStart(size);
+            boolean skipLf = false;
+            parsing:
+            while (lineStart < Math.min(size, to)) {
+                long regionSize = Math.min(REGION, size - lineStart);
+                MappedByteBuffer region = channel.map(FileChannel.MapMode.READ_ONLY, lineStart, regionSize);
+                int start = 0;
+                boolean ascii = true;
+                for (int i = 0; i < regionSize; i++) {
+                    byte b = region.get(i);
+                    if (skipLf) {
+                        skipLf = false;
+                        if (b == '\n') {
+                            start = i + 1;
+                            continue;
+                        }
+                    }
+                    if (lineStart + start >= to) {
+                        break parsing;
+                    }
+                    if (b == '\n' || b == '\r') {
+                        lines[count] = decode(region, start, i - start, ascii);
+                        ends[count++] = lineStart + i + 1;
+                        if (count == BATCH) {
+                            batches.put(new Batch(lines, ends, count));
+                            lines = new String[BATCH];
+                            ends = new long[BATCH];
+                            count = 0;
+                        }
+                        skipLf = b == '\r';
+                        start = i + 1;
+                        ascii = true;
+                    } else if (b < 0) {
+                        ascii = false;
+                    }
+                }
+                if (lineStart + regionSize == size) {
+                    if (start < regionSize && lineStart + start < to) {
+                        lines[count] = decode(region, start, (int) regionSize - start, ascii);
+                        ends[count++] = size;
+                    }
+                    break;
+                }
+                if (start == 0) {
+                    throw new IOException(String.format("Input line at offset %d is too long", lineStart));
+                }
+                lineStart += start;
+            }
+        } catch (IOException e) {
+            failure = e;
+        } catch (InterruptedException e) {
+            return;
+        }
+        try {
+            if (count > 0) {
+                batches.put(new Batch(lines, ends, count));
+            }
+            batches.put(END);
+        } catch (InterruptedException ignore) {
+        }
+    }
+
+    // The first line start at or after `from`: lines start after "\n", after "\r\n" and after a lone "\r".
+    private long firstLineStart(long size) throws IOException {
+        if (from == 0) {
+            return 0;
+        }
+        ByteBuffer buf = ByteBuffer.allocate(SCAN_SIZE);
+        long position = from - 1;
+        boolean afterCr = false;
+        while (position < size) {
+            buf.clear();
+            int count = channel.read(buf, position);
+            if (count <= 0) {
+                break;
+            }
+            for (int i = 0; i < count; i++) {
+                byte b = buf.get(i);
+                if (afterCr) {
+                    return b == '\n' ? position + i + 1 : position + i;
+                }
+                if (b == '\n') {
+                    return position + i + 1;
+                }
+                afterCr = b == '\r';
+            }
+            position += count;
+        }
+        return size;
+    }
+
+    private String decode(ByteBuffer region, int offset, int length, boolean ascii) throws IOException {
+        if (scratch.length < length) {
+            scratch = new byte[Math.max(length, scratch.length * 2)];
+        }
+        region.get(offset, scratch, 0, length);
+        if (ascii) {
+            return new String(scratch, 0, length, StandardCharsets.ISO_8859_1);
+        }
+        return decoder.decode(ByteBuffer.wrap(scratch, 0, length)).toString();
+    }
+
+    @Override
+    public void close() throws IOException {
+        parser.interrupt();
+        channel.close();
+    }
+}
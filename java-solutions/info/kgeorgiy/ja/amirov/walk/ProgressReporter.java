@@ -0,0 +1,79 @@
+package info.kgeorgiy.ja.amirov.walk;
+
+import java.util.Locale;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Periodically prints walk metrics to stderr, and once more when closed.
+// Periodic lines show the rates over the last interval, the final line shows the rates over the whole walk.
+public class ProgressReporter implements AutoCloseable {
+    public enum Format {
+        TEXT, JSON;
+
+        public static Format byName(final String name) throws WalkException {
+            for (Format format : values()) {
+                if (format.name().equalsIgnoreCase(name)) {
+                    return format;
+                }
+            }
+            throw new WalkException(String.format("Unknown progress format %s, expected one of: text, json", name));
+        }
+    }
+
+    private final WalkMetrics metrics;
+    private final Format format;
+    private final ScheduledExecutorService scheduler;
+    private long sampleNanos;
+    private long sampleFiles;
+    private long sampleBytes;
+
+    public ProgressReporter(final WalkMetrics metrics, final int seconds, final Format format) {
+        this.metrics = metrics;
+        this.format = format;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "walk-progress");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleAtFixedRate(() -> report(false), seconds, seconds, TimeUnit.SECONDS);
+    }
+
+    private synchronized void report(final boolean last) {
+        final long nanos = metrics.elapsedNanos();
+        final long files = metrics.filesDone();
+        final long bytes = metrics.getBytesRead();
+        if (last) {
+            sampleNanos = 0;
+            sampleFiles = 0;
+            sampleBytes = 0;
+        }
+        final double filesPerSecond = WalkMetrics.rate(files - sampleFiles, nanos - sampleNanos);
+        final double bytesPerSecond = WalkMetrics.rate(bytes - sampleBytes, nanos - sampleNanos);
+        sampleNanos = nanos;
+        sampleFiles = files;
+        sampleBytes = bytes;
+        if (format == Format.JSON) {
+            System.err.format(Locale.ROOT, "{\"entries\":%d,\"filesHashed\":%d,\"filesConfirmed\":%d,\"cacheHits\":%d,\"bytesRead\":%d,"
+                            + "\"failures\":%d,\"filesPerSecond\":%.1f,\"bytesPerSecond\":%.1f,\"hashTimeRatio\":%.3f,"
+                            + "\"latencyP50Micros\":%d,\"latencyP99Micros\":%d}%n",
+                    metrics.getEntries(), metrics.getFilesHashed(), metrics.getFilesConfirmed(), metrics.getCacheHits(),
+                    metrics.getBytesRead(),
+                    metrics.getFailures(), filesPerSecond, bytesPerSecond,
+                    metrics.getHashTimeRatio(), metrics.getLatencyP50Micros(), metrics.getLatencyP99Micros());
+        } else {
+            System.err.format(Locale.ROOT, "progress: %d entries, %d files hashed, %d confirmed, %d cached, %.1f MB read, %d failures, "
+                            + "%.1f files/s, %.1f MB/s, %.0f%% hashing, p50 %d us, p99 %d us%n",
+                    metrics.getEntries(), metrics.getFilesHashed(), metrics.getFilesConfirmed(), metrics.getCacheHits(),
+                    metrics.getBytesRead() / 1e6,
+                    metrics.getFailures(), filesPerSecond, bytesPerSecond / 1e6,
+                    metrics.getHashTimeRatio() * 100, metrics.getLatencyP50Micros(), metrics.getLatencyP99Micros());
+        }
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+        report(true);
+    }
+}
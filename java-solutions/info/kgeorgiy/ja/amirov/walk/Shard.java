@@ -0,0 +1,33 @@
+package info.kgeorgiy.ja.amirov.walk;
+
+// Shard `index` of `count` takes the input lines starting in the index-th of count equal byte ranges,
+// so concatenating the outputs of all shards in order gives the output of a single run.
+public record Shard(int index, int count) {
+    public static Shard parse(final String value) throws WalkException {
+        int slash = value.indexOf('/');
+        try {
+            if (slash > 0) {
+                int index = Integer.parseInt(value.substring(0, slash));
+                int count = Integer.parseInt(value.substring(slash + 1));
+                if (0 <= index && index < count) {
+                    return new Shard(index, count);
+                }
+            }
+        } catch (NumberFormatException ignore) {
+        }
+        throw new WalkException(String.format("Expected shard as <index>/<count> with 0 <= index < count, found %s", value));
+    }
+
+    public long from(final long size) {
+        return size / count * index + size % count * index / count;
+    }
+
+    public long to(final long size) {
+        return index == count - 1 ? Long.MAX_VALUE : new Shard(index + 1, count).from(size);
+    }
+
+    @Override
+    public String toString() {
+        return index + "/" + count;
+    }
+}
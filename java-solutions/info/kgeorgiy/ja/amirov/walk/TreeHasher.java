@@ -0,0 +1,96 @@
+package info.kgeorgiy.ja.amirov.walk;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+// Splits a file into CHUNK-sized pieces, hashes them in parallel and feeds the concatenated chunk digests
+// to the root hash function. The result differs from the plain digest of the file,
+// so it is written with a "tree-<algorithm>:" tag.
+public class TreeHasher {
+    static final int CHUNK = 4 << 20;
+    private static final int BUF_SIZE = 1 << 20;
+    private static final ThreadLocal<ByteBuffer> BUFFER = ThreadLocal.withInitial(() -> ByteBuffer.allocateDirect(BUF_SIZE));
+
+    private final HashAlgorithm algorithm;
+    private final ForkJoinPool pool;
+
+    public TreeHasher(final HashAlgorithm algorithm, final ForkJoinPool pool) {
+        this.algorithm = algorithm;
+        this.pool = pool;
+    }
+
+    void hash(Path filePath, FileHasher.TimedHashFunction root) throws IOException {
+        try (FileChannel channel = FileChannel.open(filePath, StandardOpenOption.READ)) {
+            long size = channel.size();
+            FileHasher.TimedHashFunction[] leaves = new FileHasher.TimedHashFunction[(int) ((size + CHUNK - 1) / CHUNK)];
+            try {
+                pool.invoke(new Leaves(channel, size, leaves, 0, leaves.length));
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            ByteBuffer digests = ByteBuffer.allocate(leaves.length * algorithm.digestLength());
+            for (FileHasher.TimedHashFunction leaf : leaves) {
+                digests.put(leaf.digest());
+                root.add(leaf);
+            }
+            root.updateDerived(digests.flip());
+        }
+    }
+
+    private class Leaves extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final FileChannel channel;
+        private final long size;
+        private final FileHasher.TimedHashFunction[] leaves;
+        private final int from;
+        private final int to;
+
+        Leaves(final FileChannel channel, final long size, final FileHasher.TimedHashFunction[] leaves,
+               final int from, final int to) {
+            this.channel = channel;
+            this.size = size;
+            this.leaves = leaves;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > 1) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new Leaves(channel, size, leaves, from, mid), new Leaves(channel, size, leaves, mid, to));
+                return;
+            }
+            if (from == to) {
+                return;
+            }
+            FileHasher.TimedHashFunction leaf = new FileHasher.TimedHashFunction(algorithm.create());
+            ByteBuffer buf = BUFFER.get();
+            long position = (long) from * CHUNK;
+            long end = Math.min(size, position + CHUNK);
+            try {
+                while (position < end) {
+                    buf.clear().limit((int) Math.min(buf.capacity(), end - position));
+                    int count = channel.read(buf, position);
+                    if (count < 0) {
+                        break;
+                    }
+                    position += count;
+                    buf.flip();
+                    leaf.update(buf);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            leaf.stop();
+            leaves[from] = leaf;
+        }
+    }
+}
@@ -1,15 +1,40 @@
 package info.kgeorgiy.ja.amirov.walk;
 
-import java.io.BufferedReader;
-import java.io.BufferedWriter;
 import java.io.IOException;
+import java.nio.channels.FileChannel;
 import java.nio.file.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
 
 public class Walk {
+    private static final int PENDING_PER_WORKER = 64;
+
     public static void walk(final String input, final String output, final int depth) throws WalkException {
-        Path inputFile = validatePath(input);
-        Path outputFile = validatePath(output);
+        walk(new WalkOptions(input, output), depth);
+    }
+
+    public static void walk(final String input, final String output, final int depth, final int threads) throws WalkException {
+        walk(new WalkOptions(input, output).threads(threads), depth);
+    }
+
+    public static void walk(final WalkOptions options, final int depth) throws WalkException {
+        Path inputFile = validatePath(options.input());
+        Path outputFile = validatePath(options.output());
+        Path cacheFile = options.cache() == null ? null : validatePath(options.cache());
+        Path checkpointFile = options.checkpoint() == null ? null : validatePath(options.checkpoint());
+        if (options.dedup() && (checkpointFile != null || options.shard() != null)) {
+            throw new WalkException("Duplicate detection can not be combined with --checkpoint or --shard");
+        }
+        Checkpoint checkpoint = checkpointFile == null ? null : Checkpoint.load(checkpointFile);
+        if (checkpoint != null && !checkpoint.shard().equals(shardName(options))) {
+            throw new WalkException(String.format("Checkpoint %s belongs to shard '%s', not '%s'",
+                    checkpointFile, checkpoint.shard(), shardName(options)));
+        }
 
         if (outputFile.getParent() != null) {
             try {
@@ -19,18 +44,82 @@ public class Walk {
             }
         }
 
-        try (BufferedReader bufferedReader = Files.newBufferedReader(inputFile)) {
-            try (BufferedWriter bufferedWriter = Files.newBufferedWriter(outputFile)) {
-                HashFileVisitor hashFileVisitor = new HashFileVisitor(bufferedWriter);
-                String currentFilePath;
-                while ((currentFilePath = bufferedReader.readLine()) != null) {
-                    try {
-                        Path validatedCurrentFilePath = validatePath(currentFilePath);
-                        Files.walkFileTree(validatedCurrentFilePath, Set.of(), depth, hashFileVisitor);
-                    } catch (FileSystemNotFoundException | SecurityException e) {
-                        System.err.format("File %s is not found.%n%s%n", currentFilePath, e.getMessage());
-                    } catch (WalkException e) {
-                        bufferedWriter.write(String.format("%08x %s%n", 0, currentFilePath));
+        WalkMetrics metrics = new WalkMetrics();
+        boolean registered = options.jmx() && metrics.register();
+        ProgressReporter progress = options.progressInterval() > 0
+                ? new ProgressReporter(metrics, options.progressInterval(), options.progressFormat()) : null;
+        try {
+            walkFiles(options, depth, inputFile, outputFile, cacheFile, checkpointFile, checkpoint, metrics);
+        } finally {
+            if (progress != null) {
+                progress.close();
+            }
+            if (registered) {
+                metrics.unregister();
+            }
+        }
+    }
+
+    private static void walkFiles(final WalkOptions options, final int depth, final Path inputFile,
+                                  final Path outputFile, final Path cacheFile, final Path checkpointFile,
+                                  final Checkpoint checkpoint, final WalkMetrics metrics) {
+        boolean tree = options.tree() && !options.dedup();
+        String tag = tree ? "tree-" + options.algorithm() : null;
+        HashCache cache = cacheFile == null || options.dedup() ? null
+                : HashCache.load(cacheFile, tree ? tag : options.algorithm().toString(), options.algorithm().digestLength());
+        FileHasher hasher = new FileHasher(options.algorithm(), cache, metrics,
+                tree ? new TreeHasher(options.algorithm(), ForkJoinPool.commonPool()) : null);
+        try (LineSource lineSource = openInput(options, inputFile, checkpoint)) {
+            if (cache != null && checkpoint != null) {
+                cache.resume(walkedRoots(options, inputFile, checkpoint));
+            }
+            try (FileChannel outputChannel = openOutput(outputFile, checkpoint);
+                 HashWriter hashWriter = new HashWriter(outputChannel, options.flush(), tag);
+                 ParallelFileTreeWalker treeWalker = options.traversalThreads() > 1
+                         ? new ParallelFileTreeWalker(options.traversalThreads()) : null;
+                 AsyncFileHasher asyncHasher = options.queueDepth() > 0 && !tree
+                         ? new AsyncFileHasher(hasher, options.queueDepth()) : null) {
+                ExecutorService executor = options.threads() > 1 ? Executors.newFixedThreadPool(options.threads()) : null;
+                try {
+                    HashFileVisitor hashFileVisitor = createVisitor(options, hashWriter, hasher, executor, asyncHasher);
+                    long lines = 0;
+                    String currentFilePath;
+                    while ((currentFilePath = lineSource.readLine()) != null) {
+                        metrics.entry();
+                        try {
+                            Path validatedCurrentFilePath = validatePath(currentFilePath);
+                            if (treeWalker == null) {
+                                Files.walkFileTree(validatedCurrentFilePath, Set.of(), depth, hashFileVisitor);
+                            } else {
+                                treeWalker.walkFileTree(validatedCurrentFilePath, depth, hashFileVisitor);
+                            }
+                        } catch (FileSystemNotFoundException | SecurityException e) {
+                            System.err.format("File %s is not found.%n%s%n", currentFilePath, e.getMessage());
+                        } catch (WalkException e) {
+                            hashFileVisitor.writeFailed(currentFilePath);
+                        }
+                        if (checkpointFile != null && ++lines % options.checkpointEvery() == 0) {
+                            hashFileVisitor.finish();
+                            hashWriter.flush();
+                            outputChannel.force(false);
+                            if (cache != null) {
+                                cache.save();
+                            }
+                            new Checkpoint(((PathListReader) lineSource).offset(), outputChannel.position(),
+                                    shardName(options)).save(checkpointFile);
+                        }
+                    }
+                    hashFileVisitor.finish();
+                    if (cache != null) {
+                        cache.save();
+                    }
+                    if (checkpointFile != null) {
+                        hashWriter.flush();
+                        Files.deleteIfExists(checkpointFile);
+                    }
+                } finally {
+                    if (executor != null) {
+                        executor.shutdownNow();
                     }
                 }
             } catch (IOException ioe) {
@@ -41,6 +130,77 @@ public class Walk {
         }
     }
 
+    private static String shardName(final WalkOptions options) {
+        return options.shard() == null ? "" : options.shard().toString();
+    }
+
+    // Shards and checkpoints address the input by byte offsets, so they always go through the mapped reader.
+    private static LineSource openInput(final WalkOptions options, final Path inputFile,
+                                        final Checkpoint checkpoint) throws IOException {
+        if (options.shard() == null && options.checkpoint() == null && !options.mappedInput()) {
+            return LineSource.of(Files.newBufferedReader(inputFile));
+        }
+        long to = Long.MAX_VALUE;
+        if (options.shard() != null) {
+            to = options.shard().to(PathListReader.size(inputFile));
+        }
+        return new PathListReader(inputFile, checkpoint == null ? inputStart(options, inputFile) : checkpoint.input(), to);
+    }
+
+    private static long inputStart(final WalkOptions options, final Path inputFile) throws IOException {
+        return options.shard() == null ? 0 : options.shard().from(PathListReader.size(inputFile));
+    }
+
+    // Roots the interrupted run had already walked: the input lines of this shard before the checkpoint.
+    private static List<Path> walkedRoots(final WalkOptions options, final Path inputFile,
+                                          final Checkpoint checkpoint) throws IOException {
+        List<Path> roots = new ArrayList<>();
+        try (PathListReader reader = new PathListReader(inputFile, inputStart(options, inputFile), checkpoint.input())) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                try {
+                    roots.add(validatePath(line));
+                } catch (WalkException ignored) {
+                    // was written as a failure, there is nothing cached for it
+                }
+            }
+        }
+        return roots;
+    }
+
+    // On resume drops everything written after the checkpoint and continues from there.
+    private static FileChannel openOutput(final Path outputFile, final Checkpoint checkpoint) throws IOException {
+        if (checkpoint == null) {
+            return FileChannel.open(outputFile,
+                    StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        }
+        FileChannel channel = FileChannel.open(outputFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        try {
+            if (channel.size() < checkpoint.output()) {
+                throw new IOException(String.format("%s is shorter than its checkpoint", outputFile));
+            }
+            channel.truncate(checkpoint.output());
+            channel.position(checkpoint.output());
+            return channel;
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    private static HashFileVisitor createVisitor(final WalkOptions options, final HashWriter hashWriter, final FileHasher hasher,
+                                                 final ExecutorService executor, final AsyncFileHasher asyncHasher) {
+        if (options.dedup()) {
+            return new DuplicateFinder(hashWriter, hasher.metrics(), executor);
+        } else if (asyncHasher != null) {
+            return new ParallelHashFileVisitor(hashWriter, hasher, asyncHasher::hash, options.queueDepth() * PENDING_PER_WORKER);
+        } else if (executor != null) {
+            return new ParallelHashFileVisitor(hashWriter, hasher, executor, options.threads() * PENDING_PER_WORKER);
+        } else {
+            return new HashFileVisitor(hashWriter, hasher);
+        }
+    }
+
     public static Path validatePath(String path) throws WalkException {
         try {
             return Path.of(path);
@@ -50,11 +210,11 @@ public class Walk {
     }
 
     public static void main(String[] args) {
-        if (args == null || args.length != 2 || args[0] == null || args[1] == null) {
+        if (args == null || Arrays.asList(args).contains(null)) {
             System.err.println("Wrong args");
         } else {
             try {
-                walk(args[0], args[1], 0);
+                walk(WalkOptions.parse(args), 0);
             } catch (WalkException we) {
                 System.err.println(we.getMessage());
             }
@@ -0,0 +1,173 @@
+package info.kgeorgiy.ja.amirov.walk;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+public class WalkMetrics implements WalkMetricsMXBean {
+    private static final String OBJECT_NAME = "info.kgeorgiy.ja.amirov.walk:type=WalkMetrics";
+    private static final int BUCKETS = 40;
+
+    private final LongAdder entries = new LongAdder();
+    private final LongAdder filesHashed = new LongAdder();
+    private final LongAdder filesConfirmed = new LongAdder();
+    private final LongAdder cacheHits = new LongAdder();
+    private final LongAdder bytesRead = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder hashNanos = new LongAdder();
+    private final LongAdder workNanos = new LongAdder();
+    private final AtomicLongArray latency = new AtomicLongArray(BUCKETS);
+
+    private final long start = System.nanoTime();
+    private ObjectName name;
+
+    void entry() {
+        entries.increment();
+    }
+
+    // `nanos` is the latency of the file, `workNanos` is the time spent reading and hashing it, summed over threads.
+    void hashed(long bytes, long nanos, long updateNanos, long workNanos) {
+        filesHashed.increment();
+        read(bytes, nanos, updateNanos, workNanos);
+    }
+
+    // A file read again to confirm a duplicate, it was already counted by `hashed`.
+    void confirmed(long bytes, long nanos, long updateNanos, long workNanos) {
+        filesConfirmed.increment();
+        read(bytes, nanos, updateNanos, workNanos);
+    }
+
+    private void read(long bytes, long nanos, long updateNanos, long workNanos) {
+        bytesRead.add(bytes);
+        this.workNanos.add(workNanos);
+        hashNanos.add(updateNanos);
+        long micros = TimeUnit.NANOSECONDS.toMicros(nanos);
+        latency.incrementAndGet(Math.min(BUCKETS - 1, Long.SIZE - Long.numberOfLeadingZeros(micros)));
+    }
+
+    void cacheHit() {
+        cacheHits.increment();
+    }
+
+    void failure() {
+        failures.increment();
+    }
+
+    boolean register() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            name = new ObjectName(OBJECT_NAME);
+            server.registerMBean(this, name);
+            return true;
+        } catch (JMException e) {
+            System.err.format("Cannot register walk metrics MBean: %s%n", e.getMessage());
+            return false;
+        }
+    }
+
+    void unregister() {
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(name);
+        } catch (JMException e) {
+            System.err.format("Cannot unregister walk metrics MBean: %s%n", e.getMessage());
+        }
+    }
+
+    // Files hashed or taken from the cache, the ones the rates are counted for.
+    long filesDone() {
+        return getFilesHashed() + getCacheHits();
+    }
+
+    long elapsedNanos() {
+        return System.nanoTime() - start;
+    }
+
+    static double rate(long count, long nanos) {
+        return nanos <= 0 ? 0 : count * 1e9 / nanos;
+    }
+
+    private long percentile(double fraction) {
+        long[] histogram = getLatencyHistogramMicros();
+        long total = 0;
+        for (long count : histogram) {
+            total += count;
+        }
+        long seen = 0;
+        for (int i = 0; i < histogram.length; i++) {
+            seen += histogram[i];
+            if (seen > 0 && seen >= total * fraction) {
+                return i == 0 ? 0 : 1L << i;
+            }
+        }
+        return 0;
+    }
+
+    @Override
+    public long getEntries() {
+        return entries.sum();
+    }
+
+    @Override
+    public long getFilesHashed() {
+        return filesHashed.sum();
+    }
+
+    @Override
+    public long getFilesConfirmed() {
+        return filesConfirmed.sum();
+    }
+
+    @Override
+    public long getCacheHits() {
+        return cacheHits.sum();
+    }
+
+    @Override
+    public long getBytesRead() {
+        return bytesRead.sum();
+    }
+
+    @Override
+    public long getFailures() {
+        return failures.sum();
+    }
+
+    @Override
+    public double getFilesPerSecond() {
+        return rate(filesDone(), elapsedNanos());
+    }
+
+    @Override
+    public double getBytesPerSecond() {
+        return rate(getBytesRead(), elapsedNanos());
+    }
+
+    @Override
+    public double getHashTimeRatio() {
+        long total = workNanos.sum();
+        return total == 0 ? 0 : (double) hashNanos.sum() / total;
+    }
+
+    @Override
+    public long getLatencyP50Micros() {
+        return percentile(0.5);
+    }
+
+    @Override
+    public long getLatencyP99Micros() {
+        return percentile(0.99);
+    }
+
+    @Override
+    public long[] getLatencyHistogramMicros() {
+        long[] result = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            result[i] = latency.get(i);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,31 @@
+package info.kgeorgiy.ja.amirov.walk;
+
+public interface WalkMetricsMXBean {
+    long getEntries();
+
+    long getFilesHashed();
+
+    // Files hashed a second time with SHA-256 to confirm duplicates, not included in getFilesHashed.
+    long getFilesConfirmed();
+
+    long getCacheHits();
+
+    long getBytesRead();
+
+    long getFailures();
+
+    // Averages since the start of the walk, so readers do not affect each other.
+    double getFilesPerSecond();
+
+    double getBytesPerSecond();
+
+    // Share of the hashing time spent inside HashFunction.update, the rest is spent reading.
+    double getHashTimeRatio();
+
+    long getLatencyP50Micros();
+
+    long getLatencyP99Micros();
+
+    // Bucket 0 counts files hashed in less than 1 us, bucket i > 0 counts latencies in [2^(i-1), 2^i) us.
+    long[] getLatencyHistogramMicros();
+}
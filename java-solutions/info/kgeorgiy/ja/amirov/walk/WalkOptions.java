@@ -0,0 +1,222 @@
+package info.kgeorgiy.ja.amirov.walk;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class WalkOptions {
+    private String input;
+    private String output;
+    private int threads = 1;
+    private int traversalThreads = 1;
+    private int queueDepth;
+    private HashAlgorithm algorithm = HashAlgorithm.JENKINS;
+    private String cache;
+    private FlushPolicy flush = FlushPolicy.FULL;
+    private int progressInterval;
+    private ProgressReporter.Format progressFormat = ProgressReporter.Format.TEXT;
+    private boolean jmx;
+    private boolean dedup;
+    private boolean tree;
+    private boolean mappedInput;
+    private String checkpoint;
+    private int checkpointEvery = 10_000;
+    private Shard shard;
+
+    public WalkOptions(final String input, final String output) {
+        this.input = input;
+        this.output = output;
+    }
+
+    public static WalkOptions parse(final String[] args) throws WalkException {
+        WalkOptions options = new WalkOptions(null, null);
+        List<String> positional = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--threads" -> options.threads(parsePositive(args, ++i));
+                case "--traversal-threads" -> options.traversalThreads(parsePositive(args, ++i));
+                case "--async" -> options.queueDepth(parsePositive(args, ++i));
+                case "--hash" -> options.algorithm(HashAlgorithm.byName(value(args, ++i)));
+                case "--cache" -> options.cache(value(args, ++i));
+                case "--flush" -> options.flush(FlushPolicy.byName(value(args, ++i)));
+                case "--progress" -> options.progressInterval(parsePositive(args, ++i));
+                case "--progress-format" -> options.progressFormat(ProgressReporter.Format.byName(value(args, ++i)));
+                case "--jmx" -> options.jmx(true);
+                case "--dedup" -> options.dedup(true);
+                case "--tree" -> options.tree(true);
+                case "--mapped-input" -> options.mappedInput(true);
+                case "--checkpoint" -> options.checkpoint(value(args, ++i));
+                case "--checkpoint-every" -> options.checkpointEvery(parsePositive(args, ++i));
+                case "--shard" -> options.shard(Shard.parse(value(args, ++i)));
+                default -> positional.add(args[i]);
+            }
+        }
+        if (positional.size() != 2) {
+            throw new WalkException("Wrong args");
+        }
+        options.input = positional.get(0);
+        options.output = positional.get(1);
+        return options;
+    }
+
+    private static String value(final String[] args, final int index) throws WalkException {
+        if (index >= args.length) {
+            throw new WalkException(String.format("Missing value for option %s", args[index - 1]));
+        }
+        return args[index];
+    }
+
+    private static int parsePositive(final String[] args, final int index) throws WalkException {
+        String value = value(args, index);
+        try {
+            int result = Integer.parseInt(value);
+            if (result > 0) {
+                return result;
+            }
+        } catch (NumberFormatException ignore) {
+        }
+        throw new WalkException(String.format("Expected positive number for option %s, found %s", args[index - 1], value));
+    }
+
+    public String input() {
+        return input;
+    }
+
+    public String output() {
+        return output;
+    }
+
+    public int threads() {
+        return threads;
+    }
+
+    public WalkOptions threads(final int threads) {
+        this.threads = threads;
+        return this;
+    }
+
+    public int traversalThreads() {
+        return traversalThreads;
+    }
+
+    public WalkOptions traversalThreads(final int traversalThreads) {
+        this.traversalThreads = traversalThreads;
+        return this;
+    }
+
+    public int queueDepth() {
+        return queueDepth;
+    }
+
+    public WalkOptions queueDepth(final int queueDepth) {
+        this.queueDepth = queueDepth;
+        return this;
+    }
+
+    public HashAlgorithm algorithm() {
+        return algorithm;
+    }
+
+    public WalkOptions algorithm(final HashAlgorithm algorithm) {
+        this.algorithm = algorithm;
+        return this;
+    }
+
+    public String cache() {
+        return cache;
+    }
+
+    public WalkOptions cache(final String cache) {
+        this.cache = cache;
+        return this;
+    }
+
+    public FlushPolicy flush() {
+        return flush;
+    }
+
+    public WalkOptions flush(final FlushPolicy flush) {
+        this.flush = flush;
+        return this;
+    }
+
+    public int progressInterval() {
+        return progressInterval;
+    }
+
+    public WalkOptions progressInterval(final int progressInterval) {
+        this.progressInterval = progressInterval;
+        return this;
+    }
+
+    public ProgressReporter.Format progressFormat() {
+        return progressFormat;
+    }
+
+    public WalkOptions progressFormat(final ProgressReporter.Format progressFormat) {
+        this.progressFormat = progressFormat;
+        return this;
+    }
+
+    public boolean jmx() {
+        return jmx;
+    }
+
+    public WalkOptions jmx(final boolean jmx) {
+        this.jmx = jmx;
+        return this;
+    }
+
+    public boolean dedup() {
+        return dedup;
+    }
+
+    public WalkOptions dedup(final boolean dedup) {
+        this.dedup = dedup;
+        return this;
+    }
+
+    public boolean tree() {
+        return tree;
+    }
+
+    public WalkOptions tree(final boolean tree) {
+        this.tree = tree;
+        return this;
+    }
+
+    public boolean mappedInput() {
+        return mappedInput;
+    }
+
+    public WalkOptions mappedInput(final boolean mappedInput) {
+        this.mappedInput = mappedInput;
+        return this;
+    }
+
+    public String checkpoint() {
+        return checkpoint;
+    }
+
+    public WalkOptions checkpoint(final String checkpoint) {
+        this.checkpoint = checkpoint;
+        return this;
+    }
+
+    public int checkpointEvery() {
+        return checkpointEvery;
+    }
+
+    public WalkOptions checkpointEvery(final int checkpointEvery) {
+        this.checkpointEvery = checkpointEvery;
+        return this;
+    }
+
+    public Shard shard() {
+        return shard;
+    }
+
+    public WalkOptions shard(final Shard shard) {
+        this.shard = shard;
+        return this;
+    }
+}
@@ -0,0 +1,105 @@
+package info.kgeorgiy.ja.amirov.walk;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+// XXH64 with zero seed, consumes input in 32-byte stripes of four little-endian longs.
+public class XxHash64 implements HashFunction {
+    private static final long P1 = 0x9E3779B185EBCA87L;
+    private static final long P2 = 0xC2B2AE3D27D4EB4FL;
+    private static final long P3 = 0x165667B19E3779F9L;
+    private static final long P4 = 0x85EBCA77C2B2AE63L;
+    private static final long P5 = 0x27D4EB2F165667C5L;
+    private static final int STRIPE = 32;
+
+    private long v1 = P1 + P2;
+    private long v2 = P2;
+    private long v3 = 0;
+    private long v4 = -P1;
+    private long total = 0;
+    private final ByteBuffer tail = ByteBuffer.allocate(STRIPE).order(ByteOrder.LITTLE_ENDIAN);
+
+    @Override
+    public void update(ByteBuffer buffer) {
+        total += buffer.remaining();
+        if (tail.position() > 0) {
+            while (tail.hasRemaining() && buffer.hasRemaining()) {
+                tail.put(buffer.get());
+            }
+            if (tail.hasRemaining()) {
+                return;
+            }
+            stripe(tail, 0);
+            tail.clear();
+        }
+        int i = buffer.position();
+        for (; i + STRIPE <= buffer.limit(); i += STRIPE) {
+            stripe(buffer, i);
+        }
+        for (; i < buffer.limit(); i++) {
+            tail.put(buffer.get(i));
+        }
+        buffer.position(buffer.limit());
+    }
+
+    private void stripe(ByteBuffer buffer, int offset) {
+        v1 = round(v1, readLong(buffer, offset));
+        v2 = round(v2, readLong(buffer, offset + 8));
+        v3 = round(v3, readLong(buffer, offset + 16));
+        v4 = round(v4, readLong(buffer, offset + 24));
+    }
+
+    @Override
+    public byte[] digest() {
+        long h;
+        if (total >= STRIPE) {
+            h = Long.rotateLeft(v1, 1) + Long.rotateLeft(v2, 7) + Long.rotateLeft(v3, 12) + Long.rotateLeft(v4, 18);
+            h = mergeRound(h, v1);
+            h = mergeRound(h, v2);
+            h = mergeRound(h, v3);
+            h = mergeRound(h, v4);
+        } else {
+            h = P5;
+        }
+        h += total;
+
+        int i = 0;
+        int length = tail.position();
+        for (; i + 8 <= length; i += 8) {
+            h ^= round(0, tail.getLong(i));
+            h = Long.rotateLeft(h, 27) * P1 + P4;
+        }
+        if (i + 4 <= length) {
+            h ^= (tail.getInt(i) & 0xFFFFFFFFL) * P1;
+            h = Long.rotateLeft(h, 23) * P2 + P3;
+            i += 4;
+        }
+        for (; i < length; i++) {
+            h ^= (tail.get(i) & 0xFFL) * P5;
+            h = Long.rotateLeft(h, 11) * P1;
+        }
+
+        h ^= h >>> 33;
+        h *= P2;
+        h ^= h >>> 29;
+        h *= P3;
+        h ^= h >>> 32;
+        return ByteBuffer.allocate(Long.BYTES).putLong(h).array();
+    }
+
+    private static long readLong(ByteBuffer buffer, int offset) {
+        long value = buffer.getLong(offset);
+        return buffer.order() == ByteOrder.LITTLE_ENDIAN ? value : Long.reverseBytes(value);
+    }
+
+    private static long round(long acc, long input) {
+        acc += input * P2;
+        acc = Long.rotateLeft(acc, 31);
+        return acc * P1;
+    }
+
+    private static long mergeRound(long acc, long value) {
+        acc ^= round(0, value);
+        return acc * P1 + P4;
+    }
+}
@@ -0,0 +1,18 @@
+#!/bin/bash
+# Usage: bench.sh [WalkBenchmark|ArraySetBenchmark] [benchmark options...]
+
+SRC_PATH="../java-solutions"
+BENCH_PATH="../java-benchmarks"
+
+OUT_DIR=$(mktemp -d)
+trap 'rm -rf "$OUT_DIR"' EXIT
+
+javac -d "$OUT_DIR" \
+      $SRC_PATH/info/kgeorgiy/ja/amirov/walk/*.java \
+      $SRC_PATH/info/kgeorgiy/ja/amirov/arrayset/*.java \
+      $BENCH_PATH/info/kgeorgiy/ja/amirov/bench/*.java || exit 1
+
+BENCHMARK=${1:-WalkBenchmark}
+shift
+
+java -cp "$OUT_DIR" info.kgeorgiy.ja.amirov.bench.$BENCHMARK "$@"